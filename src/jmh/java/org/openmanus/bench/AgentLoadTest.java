@@ -0,0 +1,252 @@
+package org.openmanus.bench;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.openmanus.agent.BaseAgent;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+import org.openmanus.core.Role;
+import org.openmanus.llm.LLM;
+import org.openmanus.metrics.Histogram;
+import org.openmanus.metrics.RecordingMetrics;
+
+/**
+ * End-to-end load test: drives {@code agents} concurrent {@link BaseAgent#run}
+ * loops against a {@link SyntheticLLM} and reports runs per second, step and
+ * run latency percentiles, allocation rate and GC pauses.
+ *
+ * <p>Unlike the JMH benchmarks this measures the whole agent loop under
+ * contention, so it is a plain {@code main}. Options are {@code key=value}
+ * arguments:</p>
+ * <ul>
+ *   <li>{@code agents} concurrent agents, one platform thread each (16)</li>
+ *   <li>{@code duration} measured seconds (30), or {@code runs} total runs to
+ *       measure instead (0)</li>
+ *   <li>{@code warmup} seconds run before measuring (5)</li>
+ *   <li>{@code history} messages each agent starts with, also its memory
+ *       capacity (50), and {@code contentLength} of those messages (256)</li>
+ *   <li>{@code maxSteps} steps per run (5)</li>
+ *   <li>{@code latency} LLM latency distribution, see
+ *       {@link SyntheticLLM.LatencyDistribution#parse} ({@code lognormal:20:0.5}),
+ *       and {@code responseChars} per response (512)</li>
+ * </ul>
+ *
+ * <p>Allocation is summed from per-thread counters of
+ * {@link com.sun.management.ThreadMXBean}, so it covers the agent threads only.
+ * GC durations come from collector notifications; for concurrent collectors
+ * such as ZGC they are cycle times rather than pauses.</p>
+ */
+public final class AgentLoadTest {
+    private AgentLoadTest() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parse(args);
+        int agents = intOption(options, "agents", 16);
+        long durationSeconds = intOption(options, "duration", 30);
+        long runLimit = intOption(options, "runs", 0);
+        long warmupSeconds = intOption(options, "warmup", 5);
+        int history = intOption(options, "history", 50);
+        int contentLength = intOption(options, "contentLength", 256);
+        int maxSteps = intOption(options, "maxSteps", 5);
+        String latencySpec = Optional.ofNullable(options.remove("latency")).orElse("lognormal:20:0.5");
+        int responseChars = intOption(options, "responseChars", 512);
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+
+        LLM llm = new SyntheticLLM(SyntheticLLM.LatencyDistribution.parse(latencySpec), responseChars);
+        RecordingMetrics metrics = new RecordingMetrics();
+        Histogram runLatency = new Histogram();
+        LongAdder runs = new LongAdder();
+        AtomicLong remainingRuns = new AtomicLong(Long.MAX_VALUE);
+        AtomicBoolean stopped = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(agents);
+        // Workers stay alive until measured, since exited threads report no allocation.
+        CountDownLatch measured = new CountDownLatch(1);
+        Message[] seed = BenchmarkData.conversation(history, contentLength);
+
+        List<Thread> workers = new ArrayList<>(agents);
+        for (int i = 0; i < agents; i++) {
+            LoadAgent agent = new LoadAgent("load-" + i, llm, seed, history);
+            agent.setMaxSteps(maxSteps);
+            agent.setMetrics(metrics);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (!stopped.get() && remainingRuns.getAndDecrement() > 0) {
+                        long started = System.nanoTime();
+                        agent.run("Continue the task.", CancellationToken.none(), event -> { });
+                        runLatency.record(System.nanoTime() - started);
+                        runs.increment();
+                    }
+                } finally {
+                    finished.countDown();
+                    awaitUninterruptibly(measured);
+                }
+            }, "load-agent-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+
+        System.out.printf("agents=%d history=%d maxSteps=%d latency=%s responseChars=%d%n",
+                agents, history, maxSteps, latencySpec, responseChars);
+        workers.forEach(Thread::start);
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+
+        GcRecorder gc = new GcRecorder();
+        long allocatedBefore = allocatedBytes(workers);
+        // Measurement starts here; warmup samples are discarded.
+        if (runLimit > 0) {
+            remainingRuns.set(runLimit);
+        }
+        metrics.getStepLatency().reset();
+        runLatency.reset();
+        runs.reset();
+        long started = System.nanoTime();
+        if (runLimit > 0) {
+            finished.await();
+        } else {
+            TimeUnit.SECONDS.sleep(durationSeconds);
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = allocatedBytes(workers) - allocatedBefore;
+        long completed = runs.sum();
+        stopped.set(true);
+        measured.countDown();
+        gc.close();
+
+        double seconds = elapsed / 1e9;
+        Histogram steps = metrics.getStepLatency();
+        System.out.printf("runs=%d in %.1fs: %.1f runs/s, %.1f steps/s%n",
+                completed, seconds, completed / seconds, steps.count() / seconds);
+        System.out.printf("step latency ms: p50=%.2f p99=%.2f p999=%.2f max=%.2f%n",
+                millis(steps.percentile(50)), millis(steps.percentile(99)), millis(steps.percentile(99.9)),
+                millis(steps.max()));
+        System.out.printf("run latency ms:  p50=%.2f p99=%.2f max=%.2f%n",
+                millis(runLatency.percentile(50)), millis(runLatency.percentile(99)), millis(runLatency.max()));
+        System.out.printf("allocation: %.1f MB/s, %.1f KB/run%n",
+                allocated / seconds / (1 << 20), completed == 0 ? 0 : allocated / 1024.0 / completed);
+        System.out.printf("gc: %d collections, %d ms total, max %d ms, p99 %d ms%n",
+                gc.durations.count(), gc.total.sum(), gc.durations.max(), gc.durations.percentile(99));
+    }
+
+    private static long allocatedBytes(List<Thread> threads) {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = new long[threads.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = threads.get(i).getId();
+        }
+        long total = 0;
+        for (long bytes : bean.getThreadAllocatedBytes(ids)) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // Keep waiting; the thread exits once the latch opens.
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        String value = options.remove(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Agent that calls the LLM with its context on every step and never finishes
+     * early, so every run takes exactly {@code maxSteps} steps.
+     */
+    static final class LoadAgent extends BaseAgent {
+        LoadAgent(String name, LLM llm, Message[] seed, int history) {
+            super(name, null, llm, new Memory(Math.max(1, history)));
+            getMemory().addMessages(List.of(seed));
+            setSystemPrompt("You are a load test agent.");
+        }
+
+        @Override
+        protected String step() {
+            String reply = getLlm().respond(contextMessages(), systemMessages(), Optional.empty(),
+                    cancellationToken());
+            updateMemory(Role.ASSISTANT, reply);
+            return reply;
+        }
+    }
+
+    /**
+     * Records the duration of every collection while open.
+     */
+    private static final class GcRecorder implements NotificationListener {
+        private final Histogram durations = new Histogram();
+        private final LongAdder total = new LongAdder();
+        private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+        GcRecorder() {
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (bean instanceof NotificationEmitter emitter) {
+                    emitter.addNotificationListener(this, null, null);
+                    emitters.add(emitter);
+                }
+            }
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                long millis = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData())
+                        .getGcInfo().getDuration();
+                durations.record(millis);
+                total.add(millis);
+            }
+        }
+
+        void close() {
+            for (NotificationEmitter emitter : emitters) {
+                try {
+                    emitter.removeNotificationListener(this);
+                } catch (ListenerNotFoundException e) {
+                    // Already removed.
+                }
+            }
+        }
+    }
+}
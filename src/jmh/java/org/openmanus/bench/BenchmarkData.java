@@ -0,0 +1,44 @@
+package org.openmanus.bench;
+
+import java.util.List;
+import org.openmanus.core.FunctionCall;
+import org.openmanus.core.Message;
+import org.openmanus.core.ToolCall;
+
+/**
+ * Shared fixtures for the benchmarks.
+ */
+final class BenchmarkData {
+    private BenchmarkData() {}
+
+    static String content(int length, int seed) {
+        StringBuilder builder = new StringBuilder(length);
+        String prefix = "m" + seed + " ";
+        while (builder.length() < length) {
+            builder.append(prefix);
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    /**
+     * Alternating user and assistant messages with distinct contents.
+     */
+    static Message[] conversation(int size, int contentLength) {
+        Message[] messages = new Message[size];
+        for (int i = 0; i < size; i++) {
+            String content = content(contentLength, i);
+            messages[i] = i % 2 == 0 ? Message.user(content) : Message.assistant(content);
+        }
+        return messages;
+    }
+
+    static Message assistantWithTools(int toolCalls, int argumentLength) {
+        ToolCall[] calls = new ToolCall[toolCalls];
+        for (int i = 0; i < toolCalls; i++) {
+            calls[i] = ToolCall.functionCall(
+                    "call-" + i, new FunctionCall("tool_" + i, "{\"q\":\"" + content(argumentLength, i) + "\"}"));
+        }
+        return Message.assistantWithTools("Calling tools", List.of(calls));
+    }
+}
@@ -0,0 +1,99 @@
+package org.openmanus.bench;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmanus.core.Message;
+import org.openmanus.llm.SimpleLLM;
+import org.openmanus.llm.SpringAiChatClientLLM;
+import org.springframework.ai.chat.client.ChatClient;
+
+/**
+ * Request handling overhead of the in-process {@link SimpleLLM} and of
+ * {@link SpringAiChatClientLLM} request assembly against a stub
+ * {@link ChatClient} that returns immediately.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LlmBenchmark {
+    @Param({"10", "100", "1000"})
+    public int historySize;
+
+    @Param({"32", "1024"})
+    public int contentLength;
+
+    private List<Message> history;
+    private Optional<List<Message>> systemMessages;
+    private SimpleLLM simpleLlm;
+    private SpringAiChatClientLLM springLlm;
+
+    @Setup
+    public void setUp() {
+        history = List.of(BenchmarkData.conversation(historySize, contentLength));
+        systemMessages = Optional.of(List.of(Message.system("You are a benchmark.")));
+        simpleLlm = new SimpleLLM();
+        springLlm = new SpringAiChatClientLLM(stubChatClient());
+    }
+
+    @Benchmark
+    public String simpleRespond() {
+        return simpleLlm.respond(history, systemMessages, Optional.empty());
+    }
+
+    @Benchmark
+    public String springRequestAssembly() {
+        return springLlm.respond(history, systemMessages, Optional.of(0.7));
+    }
+
+    /**
+     * Dynamic proxies keep the stub independent of the many builder methods on
+     * the Spring AI request spec that the adapter never calls.
+     */
+    private static ChatClient stubChatClient() {
+        ClassLoader loader = ChatClient.class.getClassLoader();
+        ChatClient.CallResponseSpec response = (ChatClient.CallResponseSpec) Proxy.newProxyInstance(
+                loader, new Class<?>[] {ChatClient.CallResponseSpec.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("content")) {
+                        return "ok";
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        InvocationHandler specHandler = (proxy, method, args) -> {
+            if (method.getName().equals("call")) {
+                return response;
+            }
+            if (method.getReturnType() == ChatClient.ChatClientRequestSpec.class) {
+                return proxy;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        };
+        Object spec = Proxy.newProxyInstance(
+                loader, new Class<?>[] {ChatClient.ChatClientRequestSpec.class}, specHandler);
+        return (ChatClient) Proxy.newProxyInstance(
+                loader, new Class<?>[] {ChatClient.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prompt") && method.getParameterCount() == 0) {
+                        return spec;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
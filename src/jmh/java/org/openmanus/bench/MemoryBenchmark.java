@@ -0,0 +1,67 @@
+package org.openmanus.bench;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+
+/**
+ * Per-step {@link Memory} operations against a buffer filled to capacity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int historySize;
+
+    @Param({"32", "1024"})
+    public int contentLength;
+
+    private Memory memory;
+    private Message[] incoming;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        memory = new Memory(historySize);
+        memory.addMessages(List.of(BenchmarkData.conversation(historySize, contentLength)));
+        incoming = BenchmarkData.conversation(1024, contentLength);
+    }
+
+    @Benchmark
+    public Memory addMessageAtCapacity() {
+        memory.addMessage(incoming[next++ & (incoming.length - 1)]);
+        return memory;
+    }
+
+    @Benchmark
+    public List<Message> asList() {
+        return memory.asList();
+    }
+
+    @Benchmark
+    public List<Message> recentMessages() {
+        return memory.recentMessages(10);
+    }
+
+    @Benchmark
+    public Optional<Message> lastUserMessage() {
+        return memory.lastUserMessage();
+    }
+}
@@ -0,0 +1,111 @@
+package org.openmanus.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+
+/**
+ * A {@link Memory} shared by an agent loop, tool workers and readers taking
+ * snapshots, compared with the same memory guarded by one monitor. Each group
+ * runs two appending threads against six snapshot readers.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryContentionBenchmark {
+    @Param({"100", "1000"})
+    public int historySize;
+
+    private Memory memory;
+    private SynchronizedMemory synchronizedMemory;
+    private Message[] incoming;
+
+    @Setup
+    public void setUp() {
+        Message[] history = BenchmarkData.conversation(historySize, 64);
+        memory = new Memory(historySize);
+        memory.addMessages(List.of(history));
+        synchronizedMemory = new SynchronizedMemory(new Memory(historySize));
+        synchronizedMemory.addMessages(List.of(history));
+        incoming = BenchmarkData.conversation(1024, 64);
+    }
+
+    /**
+     * Per-thread position in the incoming messages.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(2)
+    public Memory sharedAppend(Cursor cursor) {
+        memory.addMessage(incoming[cursor.next++ & (incoming.length - 1)]);
+        return memory;
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(6)
+    public List<Message> sharedSnapshot() {
+        return memory.recentMessages(10);
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(2)
+    public SynchronizedMemory synchronizedAppend(Cursor cursor) {
+        synchronizedMemory.addMessage(incoming[cursor.next++ & (incoming.length - 1)]);
+        return synchronizedMemory;
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(6)
+    public List<Message> synchronizedSnapshot() {
+        return synchronizedMemory.recentMessages(10);
+    }
+
+    /**
+     * Baseline: every operation takes the same monitor, as callers had to do
+     * before {@link Memory} was safe to share.
+     */
+    static final class SynchronizedMemory {
+        private final Memory delegate;
+
+        SynchronizedMemory(Memory delegate) {
+            this.delegate = delegate;
+        }
+
+        synchronized void addMessage(Message message) {
+            delegate.addMessage(message);
+        }
+
+        synchronized void addMessages(List<Message> messages) {
+            delegate.addMessages(messages);
+        }
+
+        synchronized List<Message> recentMessages(int count) {
+            return delegate.recentMessages(count);
+        }
+    }
+}
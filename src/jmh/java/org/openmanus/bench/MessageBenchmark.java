@@ -0,0 +1,77 @@
+package org.openmanus.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmanus.codec.MessageBinaryCodec;
+import org.openmanus.codec.MessageJsonCodec;
+import org.openmanus.core.Message;
+
+/**
+ * Serialization of assistant messages carrying tool calls: the map-based
+ * {@link Message#toMap()} path against the streaming JSON and binary codecs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+    @Param({"1", "5"})
+    public int toolCalls;
+
+    @Param({"32", "1024"})
+    public int contentLength;
+
+    private Message message;
+    private final MessageJsonCodec jsonCodec = new MessageJsonCodec();
+    private final MessageBinaryCodec binaryCodec = new MessageBinaryCodec();
+    private final ByteArrayOutputStream jsonOut = new ByteArrayOutputStream();
+    private ByteBuffer binaryOut;
+    private ByteBuffer binaryIn;
+
+    @Setup
+    public void setUp() {
+        message = BenchmarkData.assistantWithTools(toolCalls, contentLength);
+        binaryOut = ByteBuffer.allocate(binaryCodec.encodedSize(message));
+        binaryIn = binaryCodec.encode(message);
+    }
+
+    @Benchmark
+    public Map<String, Object> toMap() {
+        return message.toMap();
+    }
+
+    @Benchmark
+    public int jsonWrite() throws IOException {
+        jsonOut.reset();
+        jsonCodec.write(message, jsonOut);
+        return jsonOut.size();
+    }
+
+    @Benchmark
+    public ByteBuffer binaryEncode() {
+        binaryOut.clear();
+        binaryCodec.encode(message, binaryOut);
+        return binaryOut;
+    }
+
+    @Benchmark
+    public Message binaryDecode() {
+        return binaryCodec.decode(binaryIn.rewind());
+    }
+}
@@ -0,0 +1,75 @@
+package org.openmanus.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmanus.agent.BaseAgent;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+import org.openmanus.core.SimHashIndex;
+
+/**
+ * {@code BaseAgent.isStuck()} as the history grows. The last message is an
+ * assistant reply so the duplicate lookup is always exercised, either exact or
+ * near-duplicate through a {@link SimHashIndex}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StuckDetectionBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int historySize;
+
+    @Param({"32", "1024"})
+    public int contentLength;
+
+    @Param({"false", "true"})
+    public boolean nearDuplicates;
+
+    private ProbeAgent agent;
+
+    @Setup
+    public void setUp() {
+        Memory.Builder builder = Memory.builder().maxMessages(historySize + 1);
+        if (nearDuplicates) {
+            builder.similarityIndex(new SimHashIndex());
+        }
+        Memory memory = builder.build();
+        memory.addMessages(List.of(BenchmarkData.conversation(historySize, contentLength)));
+        memory.addMessage(Message.assistant(BenchmarkData.content(contentLength, historySize - 1)));
+        agent = new ProbeAgent(memory);
+    }
+
+    @Benchmark
+    public boolean isStuck() {
+        return agent.probe();
+    }
+
+    static final class ProbeAgent extends BaseAgent {
+        ProbeAgent(Memory memory) {
+            super("probe", null, null, memory);
+        }
+
+        boolean probe() {
+            return isStuck();
+        }
+
+        @Override
+        protected String step() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.openmanus.bench;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openmanus.core.Message;
+import org.openmanus.exception.LLMException;
+import org.openmanus.llm.LLM;
+
+/**
+ * {@link LLM} for load tests: sleeps for a latency drawn from a configurable
+ * distribution and answers with a response of a fixed size. Every response
+ * carries a sequence number so agents are never flagged as stuck.
+ */
+public final class SyntheticLLM implements LLM {
+    private final LatencyDistribution latency;
+    private final String filler;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param latency distribution of simulated call latencies
+     * @param responseChars approximate length of every response
+     */
+    public SyntheticLLM(LatencyDistribution latency, int responseChars) {
+        this.latency = Objects.requireNonNull(latency, "latency");
+        if (responseChars < 0) {
+            throw new IllegalArgumentException("responseChars must be non-negative");
+        }
+        this.filler = BenchmarkData.content(responseChars, 0);
+    }
+
+    @Override
+    public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        long nanos = latency.sampleNanos();
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LLMException("Interrupted while simulating latency", e);
+            }
+        }
+        return sequence.incrementAndGet() + " " + filler;
+    }
+
+    /**
+     * Source of simulated latencies, in nanoseconds.
+     */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+        long sampleNanos();
+
+        static LatencyDistribution constant(long millis) {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+            return () -> nanos;
+        }
+
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+            long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+            long max = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+            if (max < min) {
+                throw new IllegalArgumentException("maxMillis must not be below minMillis");
+            }
+            return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+        }
+
+        static LatencyDistribution exponential(double meanMillis) {
+            double meanNanos = meanMillis * 1e6;
+            return () -> (long) (-meanNanos * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+        }
+
+        /**
+         * Log-normal latencies with the given median; {@code sigma} sets the tail
+         * weight (0.5 puts p99 at about 3.2 times the median).
+         */
+        static LatencyDistribution logNormal(double medianMillis, double sigma) {
+            double mu = Math.log(medianMillis * 1e6);
+            return () -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+        }
+
+        /**
+         * Parse {@code constant:MS}, {@code uniform:MIN:MAX},
+         * {@code exponential:MEAN} or {@code lognormal:MEDIAN:SIGMA}, with times in
+         * milliseconds.
+         */
+        static LatencyDistribution parse(String spec) {
+            String[] parts = spec.split(":");
+            try {
+                switch (parts[0].toLowerCase(Locale.ROOT)) {
+                    case "constant":
+                        return constant(Long.parseLong(parts[1]));
+                    case "uniform":
+                        return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                    case "exponential":
+                        return exponential(Double.parseDouble(parts[1]));
+                    case "lognormal":
+                        return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                    default:
+                        break;
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+            }
+            throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package org.openmanus.agent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.metrics.Histogram;
+
+/**
+ * Scheduler that multiplexes many agent runs over a fixed pool of worker
+ * threads, treating each {@link BaseAgent#step()} as the unit of scheduling.
+ *
+ * <p>After each step the run's next step is queued again, so steps from many
+ * agents interleave. Queued steps are ordered by {@link Priority} and then by
+ * arrival, which gives round-robin fairness between runs of the same class.
+ * Higher classes are served strictly first. Each tenant may execute at most
+ * {@code tenantStepQuota} steps at once; extra steps are parked until one of
+ * the tenant's steps finishes. When {@code maxActiveRuns} runs are in flight,
+ * further submissions are rejected with a {@link RejectedExecutionException}
+ * rather than queued without bound. The time every step spends waiting,
+ * including time parked by its tenant quota, is recorded per priority.</p>
+ */
+public final class AgentRuntime implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(AgentRuntime.class.getName());
+
+    public static final String DEFAULT_TENANT = "default";
+
+    /**
+     * Scheduling classes in descending order of precedence.
+     */
+    public enum Priority {
+        INTERACTIVE,
+        STANDARD,
+        BATCH
+    }
+
+    private static final Comparator<StepTask> ORDER =
+            Comparator.<StepTask, Priority>comparing(task -> task.run.priority)
+                    .thenComparingLong(task -> task.sequence);
+
+    private final int maxActiveRuns;
+    private final int tenantStepQuota;
+    private final PriorityBlockingQueue<StepTask> queue = new PriorityBlockingQueue<>(64, ORDER);
+    // Guarded by itself.
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private final Map<Priority, Histogram> queueDelays = new EnumMap<>(Priority.class);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger activeRuns = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder executedSteps = new LongAdder();
+    private final List<Thread> workers;
+    private volatile boolean closed;
+
+    private AgentRuntime(Builder builder) {
+        if (builder.workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        if (builder.maxActiveRuns <= 0) {
+            throw new IllegalArgumentException("maxActiveRuns must be positive");
+        }
+        if (builder.tenantStepQuota <= 0) {
+            throw new IllegalArgumentException("tenantStepQuota must be positive");
+        }
+        this.maxActiveRuns = builder.maxActiveRuns;
+        this.tenantStepQuota = builder.tenantStepQuota;
+        for (Priority priority : Priority.values()) {
+            queueDelays.put(priority, new Histogram());
+        }
+        List<Thread> threads = new ArrayList<>(builder.workers);
+        for (int i = 0; i < builder.workers; i++) {
+            Thread worker = new Thread(this::work, "openmanus-agent-runtime-" + i);
+            worker.setDaemon(true);
+            threads.add(worker);
+        }
+        this.workers = List.copyOf(threads);
+        this.workers.forEach(Thread::start);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Submits a run at {@link Priority#STANDARD} for the {@link #DEFAULT_TENANT}.
+     */
+    public CompletableFuture<List<String>> submit(BaseAgent agent, String request) {
+        return submit(agent, request, Priority.STANDARD, DEFAULT_TENANT);
+    }
+
+    /**
+     * Submits a run that cannot be cancelled through a token.
+     *
+     * @see #submit(BaseAgent, String, Priority, String, CancellationToken)
+     */
+    public CompletableFuture<List<String>> submit(
+            BaseAgent agent, String request, Priority priority, String tenant) {
+        return submit(agent, request, priority, tenant, CancellationToken.none());
+    }
+
+    /**
+     * Starts a run of {@code agent} whose steps are executed by this runtime.
+     * The request is added to the agent's memory on the calling thread.
+     * Cancelling the returned future stops the run at the next step boundary.
+     * Cancelling {@code token} also aborts the step in flight, if the agent passes
+     * the token to its LLM calls, and completes the future with the
+     * {@code "Terminated: ..."} summary of a cancelled run.
+     *
+     * @param agent idle agent to run
+     * @param request optional user request to seed the conversation
+     * @param priority scheduling class of every step of this run
+     * @param tenant tenant whose step quota this run counts against
+     * @param token cancellation signal or deadline for the run
+     * @return future completed with the same step summaries {@link BaseAgent#run(String)} returns
+     * @throws RejectedExecutionException if the runtime is closed or already has
+     *     {@code maxActiveRuns} runs in flight
+     * @throws org.openmanus.exception.AgentStateException if the agent is not idle
+     */
+    public CompletableFuture<List<String>> submit(
+            BaseAgent agent, String request, Priority priority, String tenant, CancellationToken token) {
+        Objects.requireNonNull(agent, "agent");
+        Objects.requireNonNull(priority, "priority");
+        Objects.requireNonNull(tenant, "tenant");
+        Objects.requireNonNull(token, "token");
+        if (closed) {
+            throw new RejectedExecutionException("AgentRuntime is closed");
+        }
+        if (activeRuns.incrementAndGet() > maxActiveRuns) {
+            activeRuns.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("AgentRuntime is at capacity (" + maxActiveRuns + " active runs)");
+        }
+        try {
+            agent.beginRun(request, token);
+        } catch (RuntimeException e) {
+            activeRuns.decrementAndGet();
+            throw e;
+        }
+        Run run = new Run(agent, priority, tenant);
+        enqueue(new StepTask(run, sequence.getAndIncrement()));
+        return run.future;
+    }
+
+    /**
+     * @return distribution of time, in nanoseconds, that steps of the given
+     *     class waited between becoming runnable and starting
+     */
+    public Histogram getQueueDelay(Priority priority) {
+        return queueDelays.get(Objects.requireNonNull(priority, "priority"));
+    }
+
+    /**
+     * @return number of submitted runs that have not completed yet
+     */
+    public int getActiveRuns() {
+        return activeRuns.get();
+    }
+
+    /**
+     * @return number of steps waiting for a worker or for their tenant's quota
+     */
+    public int getQueueDepth() {
+        int parked = 0;
+        synchronized (tenants) {
+            for (Tenant tenant : tenants.values()) {
+                parked += tenant.parked.size();
+            }
+        }
+        return queue.size() + parked;
+    }
+
+    /**
+     * @return number of submissions rejected because the runtime was at capacity
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of steps executed so far
+     */
+    public long getExecutedSteps() {
+        return executedSteps.sum();
+    }
+
+    /**
+     * Stops the workers. Runs that have not finished complete exceptionally
+     * with a {@link RejectedExecutionException}; a step already executing is
+     * interrupted and its run fails the same way once the step returns.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.forEach(Thread::interrupt);
+        List<StepTask> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        synchronized (tenants) {
+            for (Tenant tenant : tenants.values()) {
+                pending.addAll(tenant.parked);
+                tenant.parked.clear();
+            }
+        }
+        pending.forEach(task -> abort(task.run));
+    }
+
+    private void work() {
+        while (!closed) {
+            StepTask task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (closed) {
+                abort(task.run);
+                return;
+            }
+            if (!acquire(task)) {
+                continue;
+            }
+            StepTask next;
+            try {
+                next = execute(task);
+            } finally {
+                release(task.run.tenant);
+            }
+            if (next != null) {
+                enqueue(next);
+            }
+        }
+    }
+
+    private StepTask execute(StepTask task) {
+        Run run = task.run;
+        queueDelays.get(run.priority).record(System.nanoTime() - task.enqueuedAt);
+        if (run.future.isDone()) {
+            finish(run);
+            return null;
+        }
+        if (run.agent.hasNextStep()) {
+            try {
+                run.agent.executeStep().ifPresent(run.results::onStep);
+            } catch (RuntimeException | Error e) {
+                finish(run);
+                run.future.completeExceptionally(e);
+                return null;
+            } finally {
+                executedSteps.increment();
+            }
+        }
+        if (closed) {
+            abort(run);
+            return null;
+        }
+        if (run.agent.hasNextStep() && !run.future.isDone()) {
+            return new StepTask(run, sequence.getAndIncrement());
+        }
+        run.agent.terminationReason().ifPresent(run.results::onTermination);
+        finish(run);
+        run.future.complete(run.results.toList());
+        return null;
+    }
+
+    private void enqueue(StepTask task) {
+        queue.add(task);
+        if (closed && queue.remove(task)) {
+            abort(task.run);
+        }
+    }
+
+    private boolean acquire(StepTask task) {
+        synchronized (tenants) {
+            Tenant tenant = tenants.computeIfAbsent(task.run.tenant, key -> new Tenant());
+            if (tenant.running >= tenantStepQuota) {
+                tenant.parked.add(task);
+                return false;
+            }
+            tenant.running++;
+            return true;
+        }
+    }
+
+    private void release(String name) {
+        StepTask unparked;
+        synchronized (tenants) {
+            Tenant tenant = tenants.get(name);
+            tenant.running--;
+            unparked = tenant.parked.poll();
+            if (tenant.running == 0 && unparked == null) {
+                tenants.remove(name);
+            }
+        }
+        if (unparked != null) {
+            enqueue(unparked);
+        }
+    }
+
+    private void abort(Run run) {
+        finish(run);
+        run.future.completeExceptionally(new RejectedExecutionException("AgentRuntime is closed"));
+    }
+
+    private void finish(Run run) {
+        try {
+            run.agent.endRun();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to end run of agent " + run.agent.getName(), e);
+        } finally {
+            activeRuns.decrementAndGet();
+        }
+    }
+
+    private static final class Run {
+        private final BaseAgent agent;
+        private final Priority priority;
+        private final String tenant;
+        // Only touched by the worker executing the run's current step.
+        private final StepSummaries results = new StepSummaries();
+        private final CompletableFuture<List<String>> future = new CompletableFuture<>();
+
+        Run(BaseAgent agent, Priority priority, String tenant) {
+            this.agent = agent;
+            this.priority = priority;
+            this.tenant = tenant;
+        }
+    }
+
+    private static final class StepTask {
+        private final Run run;
+        private final long sequence;
+        private final long enqueuedAt = System.nanoTime();
+
+        StepTask(Run run, long sequence) {
+            this.run = run;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class Tenant {
+        private int running;
+        private final PriorityQueue<StepTask> parked = new PriorityQueue<>(ORDER);
+    }
+
+    /**
+     * Builder for {@link AgentRuntime}.
+     */
+    public static final class Builder {
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private int maxActiveRuns = 1024;
+        private int tenantStepQuota = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        /**
+         * Number of worker threads executing steps.
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Maximum number of runs in flight before submissions are rejected.
+         */
+        public Builder maxActiveRuns(int maxActiveRuns) {
+            this.maxActiveRuns = maxActiveRuns;
+            return this;
+        }
+
+        /**
+         * Maximum number of steps of one tenant executing at the same time.
+         */
+        public Builder tenantStepQuota(int tenantStepQuota) {
+            this.tenantStepQuota = tenantStepQuota;
+            return this;
+        }
+
+        public AgentRuntime build() {
+            return new AgentRuntime(this);
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package org.openmanus.agent;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.openmanus.concurrent.VirtualThreads;
 import org.openmanus.core.AgentState;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.ContentPool;
 import org.openmanus.core.Memory;
 import org.openmanus.core.Message;
 import org.openmanus.core.Role;
 import org.openmanus.exception.AgentExecutionException;
 import org.openmanus.exception.AgentStateException;
+import org.openmanus.exception.CancelledException;
 import org.openmanus.llm.LLM;
 import org.openmanus.llm.SimpleLLM;
+import org.openmanus.metrics.AgentMetrics;
 
 /**
  * Abstract base class that mirrors the functionality of the Python
@@ -29,11 +36,22 @@ public abstract class BaseAgent {
     private String nextStepPrompt;
     private final LLM llm;
     private final Memory memory;
+    // A lock rather than a synchronized method so blocked runs do not pin virtual threads.
+    private final ReentrantLock runLock = new ReentrantLock();
 
-    private AgentState state = AgentState.IDLE;
+    // Volatile because AgentRuntime advances the agent from different worker threads.
+    private volatile AgentState state = AgentState.IDLE;
     private int maxSteps = 10;
     private int currentStep = 0;
     private int duplicateThreshold = 2;
+    private int stuckStepLimit;
+    private int consecutiveStuckSteps;
+    private int contextTokenBudget = -1;
+    private PartialOutputListener partialOutputListener;
+    private AgentMetrics metrics = AgentMetrics.NOOP;
+    private ContentPool contentPool = ContentPool.shared();
+    private ConversationSummarizer summarizer;
+    private volatile CancellationToken cancellationToken = CancellationToken.none();
 
     protected BaseAgent(String name, String description, LLM llm, Memory memory) {
         this.name = Objects.requireNonNull(name, "name");
@@ -100,52 +118,274 @@ public abstract class BaseAgent {
         this.duplicateThreshold = duplicateThreshold;
     }
 
+    /**
+     * End the run once {@code stuckStepLimit} consecutive steps are detected as
+     * stuck, instead of spending the remaining steps on further LLM calls. Zero,
+     * the default, only applies {@link #handleStuckState()}.
+     */
+    public void setStuckStepLimit(int stuckStepLimit) {
+        if (stuckStepLimit < 0) {
+            throw new IllegalArgumentException("stuckStepLimit must be non-negative");
+        }
+        this.stuckStepLimit = stuckStepLimit;
+    }
+
+    public AgentMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Attach a metrics sink for step latency, memory, stuck detections and run
+     * outcomes. Wrap the LLM in {@link org.openmanus.llm.MeteredLLM} to also record
+     * LLM calls.
+     */
+    public void setMetrics(AgentMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    public ContentPool getContentPool() {
+        return contentPool;
+    }
+
+    /**
+     * Replace the pool used to share message contents and prebuilt system
+     * messages; defaults to {@link ContentPool#shared()}.
+     */
+    public void setContentPool(ContentPool contentPool) {
+        this.contentPool = Objects.requireNonNull(contentPool, "contentPool");
+    }
+
+    /**
+     * Enable background summarization of older messages between steps. Passing
+     * {@code null} disables it. The summarizer's threshold must be below the
+     * memory's {@code maxMessages}, or it would never be reached.
+     */
+    public void setSummarizer(ConversationSummarizer summarizer) {
+        if (summarizer != null && summarizer.getThreshold() >= memory.getMaxMessages()) {
+            throw new IllegalArgumentException("summarizer threshold " + summarizer.getThreshold()
+                    + " must be below the memory's maxMessages " + memory.getMaxMessages());
+        }
+        this.summarizer = summarizer;
+    }
+
+    /**
+     * Limit the history sent to the LLM to the newest messages whose estimated
+     * tokens fit in {@code contextTokenBudget}, as measured by the memory's
+     * {@link org.openmanus.core.TokenEstimator}.
+     */
+    public void setContextTokenBudget(int contextTokenBudget) {
+        if (contextTokenBudget <= 0) {
+            throw new IllegalArgumentException("contextTokenBudget must be positive");
+        }
+        this.contextTokenBudget = contextTokenBudget;
+    }
+
+    /**
+     * Register a listener that receives partial step output as it is produced.
+     * Passing {@code null} removes the listener.
+     */
+    public void setPartialOutputListener(PartialOutputListener partialOutputListener) {
+        this.partialOutputListener = partialOutputListener;
+    }
+
     /**
      * Runs the agent's main loop.
      *
      * @param request optional user request to seed the conversation
      * @return immutable list of step summaries
      */
-    public synchronized List<String> run(String request) {
-        if (state != AgentState.IDLE) {
+    public List<String> run(String request) {
+        return run(request, CancellationToken.none());
+    }
+
+    /**
+     * Runs the agent's main loop until it finishes, reaches {@code maxSteps} or
+     * {@code token} is cancelled. The token is checked between steps and passed
+     * to LLM calls made through {@link #cancellationToken()}; a cancelled run ends
+     * in {@link AgentState#CANCELLED} with a final {@code "Terminated: ..."} entry
+     * instead of throwing.
+     *
+     * @param request optional user request to seed the conversation
+     * @param token cancellation signal or deadline for this run
+     * @return immutable list of step summaries
+     */
+    public List<String> run(String request, CancellationToken token) {
+        StepSummaries summaries = new StepSummaries();
+        run(request, token, summaries);
+        return summaries.toList();
+    }
+
+    /**
+     * Runs the agent's main loop like {@link #run(String, CancellationToken)}, but
+     * delivers each step to {@code listener} as soon as it completes instead of
+     * collecting summaries, so long runs hold no per-step results.
+     *
+     * @param request optional user request to seed the conversation
+     * @param token cancellation signal or deadline for this run
+     * @param listener receives every completed step and the termination reason
+     */
+    public void run(String request, CancellationToken token, StepListener listener) {
+        Objects.requireNonNull(token, "token");
+        Objects.requireNonNull(listener, "listener");
+        runLock.lock();
+        try {
+            runLocked(request, token, listener);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the agent's main loop on the shared {@link VirtualThreads#executor()}
+     * without blocking the caller.
+     *
+     * @param request optional user request to seed the conversation
+     * @return future completed with the immutable list of step summaries
+     */
+    public CompletableFuture<List<String>> runAsync(String request) {
+        return runAsync(request, VirtualThreads.executor());
+    }
+
+    /**
+     * Runs the agent's main loop on the supplied executor without blocking the
+     * caller. Failures complete the future exceptionally with the same exceptions
+     * {@link #run(String)} would throw.
+     *
+     * @param request optional user request to seed the conversation
+     * @param executor executor that performs the run
+     * @return future completed with the immutable list of step summaries
+     */
+    public CompletableFuture<List<String>> runAsync(String request, Executor executor) {
+        Objects.requireNonNull(executor, "executor");
+        return CompletableFuture.supplyAsync(() -> run(request), executor);
+    }
+
+    private void runLocked(String request, CancellationToken token, StepListener listener) {
+        beginRun(request, token);
+        try {
+            while (hasNextStep()) {
+                executeStep().ifPresent(listener::onStep);
+            }
+            terminationReason().ifPresent(listener::onTermination);
+        } finally {
+            endRun();
+        }
+    }
+
+    /**
+     * Seeds memory with the request and moves the agent to {@code RUNNING}. Used
+     * by {@link #run(String)} and by {@link AgentRuntime}, which drives the
+     * remaining primitives one step at a time.
+     */
+    final void beginRun(String request, CancellationToken token) {
+        // tryLock so a runtime submission fails fast instead of waiting out a blocking run.
+        if (!runLock.tryLock()) {
             throw new AgentStateException("Cannot run agent from state: " + state);
         }
+        try {
+            if (state != AgentState.IDLE) {
+                throw new AgentStateException("Cannot run agent from state: " + state);
+            }
+            if (request != null && !request.isBlank()) {
+                updateMemory(Role.USER, request);
+            }
+            cancellationToken = token;
+            state = AgentState.RUNNING;
+        } finally {
+            runLock.unlock();
+        }
+    }
 
-        if (request != null && !request.isBlank()) {
-            updateMemory(Role.USER, request);
+    final boolean hasNextStep() {
+        if (state == AgentState.RUNNING && cancellationToken.isCancelled()) {
+            state = AgentState.CANCELLED;
         }
+        return currentStep < maxSteps && state != AgentState.FINISHED && state != AgentState.CANCELLED;
+    }
 
-        List<String> results = new ArrayList<>();
-        state = AgentState.RUNNING;
+    /**
+     * Executes a single step and returns its event, or empty if the run was
+     * cancelled during the step. Failures move the agent to {@code ERROR};
+     * callers must still invoke {@link #endRun()}.
+     */
+    final Optional<StepEvent> executeStep() {
+        AgentState fromState = state;
         try {
-            while (currentStep < maxSteps && state != AgentState.FINISHED) {
-                currentStep++;
-                LOGGER.log(Level.INFO, "Executing step {0}/{1}", new Object[] {currentStep, maxSteps});
-                String stepResult = step();
-                if (isStuck()) {
+            currentStep++;
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Executing step {0}/{1}", new Object[] {currentStep, maxSteps});
+            }
+            if (summarizer != null) {
+                summarizer.maybeCompact(memory);
+            }
+            long started = System.nanoTime();
+            String stepResult = step();
+            long duration = System.nanoTime() - started;
+            metrics.recordStep(duration);
+            metrics.recordMemory(memory.size(), memory.evictionCount());
+            if (isStuck()) {
+                metrics.recordStuck();
+                if (stuckStepLimit > 0 && ++consecutiveStuckSteps >= stuckStepLimit) {
+                    LOGGER.log(Level.WARNING, "Agent stuck for {0} consecutive steps, ending run",
+                            consecutiveStuckSteps);
+                    state = AgentState.FINISHED;
+                } else {
                     handleStuckState();
                 }
-                results.add(String.format("Step %d: %s", currentStep, stepResult));
-            }
-
-            if (currentStep >= maxSteps && state != AgentState.FINISHED) {
-                results.add(String.format("Terminated: Reached max steps (%d)", maxSteps));
+            } else {
+                consecutiveStuckSteps = 0;
             }
-            return List.copyOf(results);
+            return Optional.of(new StepEvent(currentStep, stepResult, duration, fromState, state));
+        } catch (CancelledException e) {
+            state = AgentState.CANCELLED;
+            return Optional.empty();
         } catch (AgentExecutionException e) {
             state = AgentState.ERROR;
             throw e;
         } catch (Exception e) {
+            if (cancellationToken.isCancelled()) {
+                // Steps aborted by cancellation often surface as interrupts or wrapped failures.
+                state = AgentState.CANCELLED;
+                return Optional.empty();
+            }
             state = AgentState.ERROR;
             throw new AgentExecutionException("Agent execution failed", e);
-        } finally {
-            currentStep = 0;
-            if (state != AgentState.ERROR) {
-                state = AgentState.IDLE;
-            }
         }
     }
 
+    /**
+     * @return why the run ended without finishing its task, if it did
+     */
+    final Optional<String> terminationReason() {
+        if (state == AgentState.CANCELLED) {
+            return Optional.of(cancellationToken.getReason().orElse("Cancelled"));
+        }
+        if (stuckStepLimit > 0 && consecutiveStuckSteps >= stuckStepLimit) {
+            return Optional.of(String.format("Stuck for %d consecutive steps", consecutiveStuckSteps));
+        }
+        if (currentStep >= maxSteps && state != AgentState.FINISHED) {
+            return Optional.of(String.format("Reached max steps (%d)", maxSteps));
+        }
+        return Optional.empty();
+    }
+
+    final void endRun() {
+        metrics.recordRun(state == AgentState.RUNNING ? AgentState.IDLE : state);
+        currentStep = 0;
+        consecutiveStuckSteps = 0;
+        cancellationToken = CancellationToken.none();
+        if (state != AgentState.ERROR) {
+            state = AgentState.IDLE;
+        }
+    }
+
+    /**
+     * @return the token of the current run, to pass to cancellable LLM calls
+     */
+    protected CancellationToken cancellationToken() {
+        return cancellationToken;
+    }
+
     protected void finish() {
         state = AgentState.FINISHED;
     }
@@ -156,23 +396,60 @@ public abstract class BaseAgent {
 
     protected void updateMemory(Role role, String content, String name, String toolCallId) {
         Objects.requireNonNull(role, "role");
-        Message message;
-        switch (role) {
-            case USER -> message = Message.user(content);
-            case SYSTEM -> message = Message.system(content);
-            case ASSISTANT -> message = Message.assistant(content);
-            case TOOL -> message = Message.tool(content, name, toolCallId);
-            default -> throw new IllegalStateException("Unexpected role: " + role);
+        Message.Builder builder = Message.builder().role(role).content(content).contentPool(contentPool);
+        if (role == Role.TOOL) {
+            builder.name(name).toolCallId(toolCallId);
         }
-        memory.addMessage(message);
+        memory.addMessage(builder.build());
     }
 
+    /**
+     * @return the pooled system messages for the configured system prompt
+     */
+    protected Optional<List<Message>> systemMessages() {
+        return getSystemPrompt().map(contentPool::systemMessages);
+    }
+
+    /**
+     * @return the history to send to the LLM, trimmed to the context token budget
+     *     when one is configured
+     */
+    protected List<Message> contextMessages() {
+        return contextTokenBudget > 0
+                ? memory.recentMessagesWithinTokens(contextTokenBudget)
+                : memory.asList();
+    }
+
+    /**
+     * Whether a {@link PartialOutputListener} is attached, allowing steps to skip
+     * streaming when nobody consumes the partial output.
+     */
+    protected boolean hasPartialOutputListener() {
+        return partialOutputListener != null;
+    }
+
+    /**
+     * Forward a chunk of output for the current step to the registered listener.
+     */
+    protected void emitPartialOutput(String chunk) {
+        PartialOutputListener listener = partialOutputListener;
+        if (listener != null) {
+            listener.onPartialOutput(currentStep, chunk);
+        }
+    }
+
+    /**
+     * @return whether the newest assistant reply repeats earlier ones at least
+     *     {@code duplicateThreshold} times, counting near-duplicates when the
+     *     memory has a {@link org.openmanus.core.SimilarityIndex}
+     */
     protected boolean isStuck() {
-        List<Message> messages = memory.asList();
-        if (messages.size() < 2) {
+        // One snapshot, so a concurrent clear() cannot empty the memory between the checks.
+        List<Message> recent = memory.recentMessages(2);
+        if (recent.size() < 2) {
             return false;
         }
-        Message lastMessage = messages.get(messages.size() - 1);
+        Message lastMessage = recent.get(1);
         if (lastMessage.getRole() != Role.ASSISTANT) {
             return false;
         }
@@ -180,7 +457,9 @@ public abstract class BaseAgent {
         if (content.isEmpty() || content.get().isBlank()) {
             return false;
         }
-        long duplicates = memory.countAssistantMessagesWithContent(content.get());
+        long duplicates = memory.hasSimilarityIndex()
+                ? memory.countAssistantMessagesSimilarToLast()
+                : memory.countAssistantMessagesWithContent(content.get());
         return duplicates >= duplicateThreshold;
     }
 
@@ -0,0 +1,150 @@
+package org.openmanus.agent;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openmanus.concurrent.VirtualThreads;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+import org.openmanus.llm.LLM;
+
+/**
+ * Background compaction stage that collapses older conversation messages into a
+ * summary before {@link Memory} starts evicting them.
+ *
+ * <p>{@link #maybeCompact(Memory)} is called from the agent loop between steps.
+ * Once the memory holds {@code threshold} messages it snapshots everything but
+ * the newest {@code keepRecent} messages and asks the (typically cheaper)
+ * summarizer {@link LLM} for a summary on the executor. The agent keeps running
+ * meanwhile. At a later step boundary the summary is swapped in atomically
+ * through {@link Memory#replaceOldest}. If some of the summarized messages have
+ * been evicted in the meantime, the summary replaces the part that survives; if
+ * none survive it is discarded, and no new summary starts until the next step.
+ * At most one summary is in flight per summarizer, so each agent should use its
+ * own instance.</p>
+ */
+public final class ConversationSummarizer {
+    private static final Logger LOGGER = Logger.getLogger(ConversationSummarizer.class.getName());
+
+    static final String INSTRUCTIONS = "Summarize the conversation so far for your own future reference."
+            + " Preserve the user's original request, goals, constraints, decisions made, tool results"
+            + " still relevant, and open questions. Be concise.";
+    static final String SUMMARY_PREFIX = "Summary of the earlier conversation:" + System.lineSeparator();
+
+    private final LLM llm;
+    private final int threshold;
+    private final int keepRecent;
+    private final Executor executor;
+    private final List<Message> instructions = List.of(Message.system(INSTRUCTIONS));
+    private CompletableFuture<Summary> pending;
+
+    public ConversationSummarizer(LLM llm, int threshold, int keepRecent) {
+        this(llm, threshold, keepRecent, VirtualThreads.executor());
+    }
+
+    /**
+     * @param llm model used to write summaries
+     * @param threshold memory size at which compaction starts
+     * @param keepRecent number of newest messages left untouched
+     * @param executor executor for the summarization calls
+     */
+    public ConversationSummarizer(LLM llm, int threshold, int keepRecent, Executor executor) {
+        this.llm = Objects.requireNonNull(llm, "llm");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        if (keepRecent < 0) {
+            throw new IllegalArgumentException("keepRecent must be non-negative");
+        }
+        if (threshold < keepRecent + 2) {
+            throw new IllegalArgumentException("threshold must exceed keepRecent by at least 2");
+        }
+        this.threshold = threshold;
+        this.keepRecent = keepRecent;
+    }
+
+    /**
+     * Apply a finished summary, or start a new one if the memory crossed the
+     * threshold. Never blocks on the summarizer LLM.
+     *
+     * @return whether a summary was swapped into {@code memory}
+     */
+    public synchronized boolean maybeCompact(Memory memory) {
+        Objects.requireNonNull(memory, "memory");
+        if (pending != null) {
+            if (!pending.isDone()) {
+                return false;
+            }
+            CompletableFuture<Summary> done = pending;
+            pending = null;
+            Summary summary = null;
+            try {
+                summary = done.join();
+            } catch (CompletionException | CancellationException e) {
+                LOGGER.log(Level.WARNING, "Conversation summarization failed", e.getCause());
+            }
+            if (summary == null) {
+                return false;
+            }
+            return replaceSurviving(memory, summary);
+        }
+        if (memory.size() >= threshold) {
+            List<Message> snapshot = memory.asList();
+            List<Message> older = snapshot.subList(0, snapshot.size() - keepRecent);
+            pending = CompletableFuture.supplyAsync(() -> summarize(older), executor);
+        }
+        return false;
+    }
+
+    /**
+     * @return memory size at which compaction starts
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return whether a summary is currently being produced or waiting to be applied
+     */
+    public synchronized boolean isPending() {
+        return pending != null;
+    }
+
+    /**
+     * Replace the part of the summarized prefix still at the head of
+     * {@code memory}; evictions only ever remove its oldest messages.
+     */
+    private static boolean replaceSurviving(Memory memory, Summary summary) {
+        List<Message> current = memory.asList();
+        if (current.isEmpty()) {
+            return false;
+        }
+        Message oldest = current.get(0);
+        List<Message> replaced = summary.replaced;
+        for (int i = 0; i < replaced.size(); i++) {
+            if (replaced.get(i) == oldest) {
+                return memory.replaceOldest(replaced.subList(i, replaced.size()), summary.message);
+            }
+        }
+        return false;
+    }
+
+    private Summary summarize(List<Message> older) {
+        String text = llm.respond(older, Optional.of(instructions), Optional.empty());
+        return new Summary(older, Message.system(SUMMARY_PREFIX + text));
+    }
+
+    private static final class Summary {
+        private final List<Message> replaced;
+        private final Message message;
+
+        Summary(List<Message> replaced, Message message) {
+            this.replaced = replaced;
+            this.message = message;
+        }
+    }
+}
@@ -10,7 +10,9 @@ import org.openmanus.llm.LLM;
 /**
  * Demonstration agent that mirrors a small portion of the behaviour of the
  * Python {@code ManusAgent}. It asks the backing {@link LLM} for a response to
- * the full conversation and stores the reply as an assistant message.
+ * the full conversation and stores the reply as an assistant message. When a
+ * {@link PartialOutputListener} is attached the reply is streamed and forwarded
+ * chunk by chunk.
  */
 public final class EchoAgent extends BaseAgent {
     public EchoAgent(String name, String description, LLM llm, Memory memory) {
@@ -23,12 +25,15 @@ public final class EchoAgent extends BaseAgent {
 
     @Override
     protected String step() {
-        Optional<List<Message>> systemMessages =
-                getSystemPrompt().map(prompt -> List.of(Message.system(prompt)));
+        Optional<List<Message>> systemMessages = systemMessages();
         Optional<Double> temperature =
                 getNextStepPrompt().filter(prompt -> !prompt.isBlank()).map(prompt -> 0.7d);
 
-        String reply = getLlm().respond(getMemory().asList(), systemMessages, temperature);
+        List<Message> history = contextMessages();
+        String reply = hasPartialOutputListener()
+                ? getLlm().respondStreaming(history, systemMessages, temperature, this::emitPartialOutput,
+                        cancellationToken())
+                : getLlm().respond(history, systemMessages, temperature, cancellationToken());
 
         updateMemory(Role.ASSISTANT, reply);
         finish();
@@ -0,0 +1,16 @@
+package org.openmanus.agent;
+
+/**
+ * Receives incremental output produced while an agent step is still running,
+ * for example tokens streamed from the backing {@link org.openmanus.llm.LLM}.
+ */
+@FunctionalInterface
+public interface PartialOutputListener {
+    /**
+     * Called for each chunk of output in the order it was produced.
+     *
+     * @param step the 1-based step currently executing
+     * @param chunk the newly produced output
+     */
+    void onPartialOutput(int step, String chunk);
+}
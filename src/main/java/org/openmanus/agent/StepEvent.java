@@ -0,0 +1,77 @@
+package org.openmanus.agent;
+
+import java.time.Duration;
+import org.openmanus.core.AgentState;
+
+/**
+ * Outcome of one completed agent step, delivered to a {@link StepListener} as
+ * soon as the step ends.
+ */
+public final class StepEvent {
+    private final int step;
+    private final String result;
+    private final long durationNanos;
+    private final AgentState fromState;
+    private final AgentState toState;
+
+    StepEvent(int step, String result, long durationNanos, AgentState fromState, AgentState toState) {
+        this.step = step;
+        this.result = result;
+        this.durationNanos = durationNanos;
+        this.fromState = fromState;
+        this.toState = toState;
+    }
+
+    /**
+     * @return the 1-based step number within the run
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * @return the value returned by {@link BaseAgent#step()}, unformatted
+     */
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * @return time spent in {@link BaseAgent#step()}
+     */
+    public Duration getDuration() {
+        return Duration.ofNanos(durationNanos);
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return the agent state when the step started
+     */
+    public AgentState getFromState() {
+        return fromState;
+    }
+
+    /**
+     * @return the agent state after the step, for example {@code FINISHED} if the
+     *     step completed the task
+     */
+    public AgentState getToState() {
+        return toState;
+    }
+
+    /**
+     * @return the summary line {@link BaseAgent#run(String)} returns for this step
+     */
+    String summary() {
+        return "Step " + step + ": " + result;
+    }
+
+    @Override
+    public String toString() {
+        return "StepEvent{step=" + step + ", " + fromState + "->" + toState + ", duration="
+                + getDuration().toMillis() + "ms}";
+    }
+}
@@ -0,0 +1,23 @@
+package org.openmanus.agent;
+
+/**
+ * Receives the steps of an agent run as they complete, see
+ * {@link BaseAgent#run(String, org.openmanus.core.CancellationToken, StepListener)}.
+ * Callbacks run on the thread executing the run; an exception thrown by the
+ * listener aborts the run and propagates to the caller.
+ */
+@FunctionalInterface
+public interface StepListener {
+    /**
+     * Called after each completed step, in step order.
+     */
+    void onStep(StepEvent event);
+
+    /**
+     * Called once after the last step if the run ended without finishing its
+     * task, for example because it reached {@code maxSteps} or was cancelled.
+     *
+     * @param reason why the run was terminated
+     */
+    default void onTermination(String reason) {}
+}
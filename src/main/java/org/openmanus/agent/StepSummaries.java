@@ -0,0 +1,26 @@
+package org.openmanus.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the {@code "Step N: ..."} and {@code "Terminated: ..."} lines returned
+ * by the list-based run APIs.
+ */
+final class StepSummaries implements StepListener {
+    private final List<String> lines = new ArrayList<>();
+
+    @Override
+    public void onStep(StepEvent event) {
+        lines.add(event.summary());
+    }
+
+    @Override
+    public void onTermination(String reason) {
+        lines.add("Terminated: " + reason);
+    }
+
+    List<String> toList() {
+        return List.copyOf(lines);
+    }
+}
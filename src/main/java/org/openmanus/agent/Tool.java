@@ -0,0 +1,21 @@
+package org.openmanus.agent;
+
+/**
+ * A function the model can invoke through a {@link org.openmanus.core.ToolCall}.
+ * Implementations must be safe to call concurrently.
+ */
+public interface Tool {
+    /**
+     * @return the function name the model uses to refer to this tool
+     */
+    String getName();
+
+    /**
+     * Run the tool.
+     *
+     * @param arguments raw JSON arguments from the tool call
+     * @return the result text stored in the {@code tool} message
+     * @throws Exception if the tool fails; the failure is reported to the model
+     */
+    String execute(String arguments) throws Exception;
+}
@@ -0,0 +1,157 @@
+package org.openmanus.agent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openmanus.concurrent.VirtualThreads;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+import org.openmanus.core.Role;
+import org.openmanus.core.ToolCall;
+
+/**
+ * Executes the tool calls of an assistant message concurrently.
+ *
+ * <p>Every call runs as its own task on the executor (virtual threads by
+ * default) and gets the same per-call timeout, counted from when the call starts
+ * running, so calls queued behind a bounded executor are not charged for the
+ * wait. Waiting for a thread is limited by the same timeout; a call that is not
+ * started in time is cancelled and reported as timed out. Results are returned
+ * as {@link Role#TOOL} messages in the original call order regardless of
+ * completion order. Unknown tools, failures and timeouts become error results so
+ * the model can react to them; timed out calls are interrupted.</p>
+ */
+public final class ToolExecutor {
+    private static final Logger LOGGER = Logger.getLogger(ToolExecutor.class.getName());
+
+    private final ToolRegistry registry;
+    private final Executor executor;
+    private final Duration timeout;
+
+    public ToolExecutor(ToolRegistry registry) {
+        this(registry, VirtualThreads.executor(), Duration.ofSeconds(30));
+    }
+
+    /**
+     * @param registry tools available to the model
+     * @param executor executor running the calls; bound it to cap concurrency
+     * @param timeout per-call timeout
+     */
+    public ToolExecutor(ToolRegistry registry, Executor executor, Duration timeout) {
+        this.registry = Objects.requireNonNull(registry, "registry");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.timeout = Objects.requireNonNull(timeout, "timeout");
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+    }
+
+    /**
+     * Run the tool calls of {@code assistantMessage}.
+     *
+     * @return one tool message per call, in call order
+     */
+    public List<Message> execute(Message assistantMessage) {
+        Objects.requireNonNull(assistantMessage, "assistantMessage");
+        List<ToolCall> calls = assistantMessage.getToolCalls();
+        List<TimedCall> tasks = new ArrayList<>(calls.size());
+        for (ToolCall call : calls) {
+            TimedCall task = new TimedCall(() -> invoke(call));
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task = null;
+            }
+            tasks.add(task);
+        }
+
+        List<Message> results = new ArrayList<>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            ToolCall call = calls.get(i);
+            String name = call.getFunction().getName();
+            results.add(Message.tool(await(call, tasks.get(i)), name, call.getId()));
+        }
+        return results;
+    }
+
+    /**
+     * Run the tool calls of {@code assistantMessage} and append the results to
+     * {@code memory} in call order.
+     *
+     * @return the appended tool messages
+     */
+    public List<Message> executeInto(Message assistantMessage, Memory memory) {
+        Objects.requireNonNull(memory, "memory");
+        List<Message> results = execute(assistantMessage);
+        memory.addMessages(results);
+        return results;
+    }
+
+    private String invoke(ToolCall call) throws Exception {
+        String name = call.getFunction().getName();
+        Tool tool = registry.find(name).orElse(null);
+        if (tool == null) {
+            return "Error: unknown tool '" + name + "'";
+        }
+        return tool.execute(call.getFunction().getArguments());
+    }
+
+    private String await(ToolCall call, TimedCall task) {
+        String name = call.getFunction().getName();
+        if (task == null) {
+            return "Error: tool '" + name + "' was rejected by the executor";
+        }
+        try {
+            // Waiting for a thread is bounded too, so a dropped or starved task cannot hang the batch.
+            long queueRemaining = task.submittedNanos + timeout.toNanos() - System.nanoTime();
+            if (!task.started.await(Math.max(0, queueRemaining), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException();
+            }
+            long remaining = task.startedNanos + timeout.toNanos() - System.nanoTime();
+            String result = task.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            return result != null ? result : "";
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            return "Error: tool '" + name + "' timed out after " + timeout.toMillis() + " ms";
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            LOGGER.log(Level.WARNING, "Tool '" + name + "' failed", cause);
+            return "Error: tool '" + name + "' failed: " + cause;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(true);
+            return "Error: tool '" + name + "' was interrupted";
+        }
+    }
+
+    /**
+     * Tool call task that records when an executor thread picks it up.
+     */
+    private static final class TimedCall extends FutureTask<String> {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final long submittedNanos = System.nanoTime();
+        private volatile long startedNanos;
+
+        TimedCall(Callable<String> callable) {
+            super(callable);
+        }
+
+        @Override
+        public void run() {
+            startedNanos = System.nanoTime();
+            started.countDown();
+            super.run();
+        }
+    }
+}
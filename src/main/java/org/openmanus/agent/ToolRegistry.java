@@ -0,0 +1,30 @@
+package org.openmanus.agent;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe lookup of {@link Tool}s by name.
+ */
+public final class ToolRegistry {
+    private final Map<String, Tool> tools = new ConcurrentHashMap<>();
+
+    /**
+     * Register a tool, replacing any tool with the same name.
+     */
+    public ToolRegistry register(Tool tool) {
+        Objects.requireNonNull(tool, "tool");
+        tools.put(Objects.requireNonNull(tool.getName(), "name"), tool);
+        return this;
+    }
+
+    public Optional<Tool> find(String name) {
+        return Optional.ofNullable(tools.get(name));
+    }
+
+    public int size() {
+        return tools.size();
+    }
+}
@@ -0,0 +1,169 @@
+package org.openmanus.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.openmanus.core.FunctionCall;
+import org.openmanus.core.Message;
+import org.openmanus.core.Role;
+import org.openmanus.core.ToolCall;
+
+/**
+ * Compact binary encoding of {@link Message}s for internal storage and IPC.
+ *
+ * <p>Layout, big-endian: one role code byte (0 system, 1 user, 2 assistant,
+ * 3 tool, independent of {@link Role}'s declaration order), then content, name
+ * and tool call id as strings, an {@code int} tool call count and four strings
+ * (id, type, function name, arguments) per tool call. A string is an {@code int} byte length
+ * ({@code -1} for absent) followed by UTF-8 bytes. The format has no framing of
+ * its own; callers that concatenate messages should length-prefix them with
+ * {@link #encodedSize(Message)}.</p>
+ *
+ * <p>Encoding writes UTF-8 straight into the target buffer without intermediate
+ * arrays. Instances keep a scratch array for decoding from direct buffers and
+ * are therefore not thread-safe.</p>
+ */
+public final class MessageBinaryCodec {
+    private byte[] scratch = new byte[256];
+
+    /**
+     * @return number of bytes {@link #encode} writes for {@code message}
+     */
+    public int encodedSize(Message message) {
+        int size = 1 + 4
+                + stringSize(message.getContent().orElse(null))
+                + stringSize(message.getName().orElse(null))
+                + stringSize(message.getToolCallId().orElse(null));
+        for (ToolCall call : message.getToolCalls()) {
+            size += stringSize(call.getId())
+                    + stringSize(call.getType())
+                    + stringSize(call.getFunction().getName())
+                    + stringSize(call.getFunction().getArguments());
+        }
+        return size;
+    }
+
+    /**
+     * Write {@code message} at the buffer position.
+     *
+     * @throws java.nio.BufferOverflowException if fewer than
+     *     {@link #encodedSize(Message)} bytes remain
+     */
+    public void encode(Message message, ByteBuffer target) {
+        target.put(roleCode(message.getRole()));
+        writeString(target, message.getContent().orElse(null));
+        writeString(target, message.getName().orElse(null));
+        writeString(target, message.getToolCallId().orElse(null));
+        List<ToolCall> calls = message.getToolCalls();
+        target.putInt(calls.size());
+        for (ToolCall call : calls) {
+            writeString(target, call.getId());
+            writeString(target, call.getType());
+            writeString(target, call.getFunction().getName());
+            writeString(target, call.getFunction().getArguments());
+        }
+    }
+
+    /**
+     * @return a new heap buffer holding the encoded message, ready for reading
+     */
+    public ByteBuffer encode(Message message) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(message));
+        encode(message, buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Read one message at the buffer position, advancing past it.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid message
+     */
+    public Message decode(ByteBuffer source) {
+        try {
+            Message.Builder builder = Message.builder()
+                    .role(role(source.get()))
+                    .content(readString(source))
+                    .name(readString(source))
+                    .toolCallId(readString(source));
+            int count = source.getInt();
+            if (count < 0) {
+                throw new IllegalArgumentException("Negative tool call count " + count);
+            }
+            if (count > 0) {
+                List<ToolCall> calls = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String id = required(readString(source), "tool call id");
+                    String type = required(readString(source), "tool call type");
+                    String name = required(readString(source), "function name");
+                    String arguments = required(readString(source), "function arguments");
+                    calls.add(new ToolCall(id, type, new FunctionCall(name, arguments)));
+                }
+                builder.toolCalls(calls);
+            }
+            return builder.build();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Malformed binary message", e);
+        }
+    }
+
+    private static byte roleCode(Role role) {
+        return switch (role) {
+            case SYSTEM -> 0;
+            case USER -> 1;
+            case ASSISTANT -> 2;
+            case TOOL -> 3;
+        };
+    }
+
+    private static Role role(byte code) {
+        return switch (code) {
+            case 0 -> Role.SYSTEM;
+            case 1 -> Role.USER;
+            case 2 -> Role.ASSISTANT;
+            case 3 -> Role.TOOL;
+            default -> throw new IllegalArgumentException("Unknown role code " + code);
+        };
+    }
+
+    private static String required(String value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Binary message is missing " + field);
+        }
+        return value;
+    }
+
+    private String readString(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > source.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (source.hasArray()) {
+            int offset = source.arrayOffset() + source.position();
+            source.position(source.position() + length);
+            return new String(source.array(), offset, length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        source.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(String value) {
+        return 4 + (value == null ? 0 : Utf8.length(value));
+    }
+
+    private static void writeString(ByteBuffer target, String value) {
+        if (value == null) {
+            target.putInt(-1);
+            return;
+        }
+        target.putInt(Utf8.length(value));
+        Utf8.encode(value, target);
+    }
+}
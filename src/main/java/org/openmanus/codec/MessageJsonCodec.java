@@ -0,0 +1,502 @@
+package org.openmanus.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.openmanus.core.FunctionCall;
+import org.openmanus.core.Message;
+import org.openmanus.core.Role;
+import org.openmanus.core.ToolCall;
+
+/**
+ * Streaming JSON codec for {@link Message}s in the OpenAI chat format produced by
+ * {@link Message#toMap()}.
+ *
+ * <p>The writer encodes UTF-8 directly into a per-thread byte buffer that is
+ * flushed to the output stream, and the reader is a hand-written pull parser.
+ * Neither builds intermediate maps. Unknown fields are skipped when reading.
+ * The codec holds no shared state and is thread-safe.</p>
+ */
+public final class MessageJsonCodec {
+    private static final int BUFFER_SIZE = 8192;
+    // Taken while a write is in progress, so a nested write on the same thread gets its own.
+    private static final ThreadLocal<ByteBuffer> BUFFERS = new ThreadLocal<>();
+
+    /**
+     * Write {@code message} as a JSON object.
+     */
+    public void write(Message message, OutputStream out) throws IOException {
+        ByteBuffer buffer = borrowBuffer();
+        try {
+            JsonWriter writer = new JsonWriter(out, buffer);
+            writeMessage(writer, message);
+            writer.flush();
+        } finally {
+            BUFFERS.set(buffer);
+        }
+    }
+
+    /**
+     * Write {@code messages} as a JSON array.
+     */
+    public void writeAll(List<Message> messages, OutputStream out) throws IOException {
+        ByteBuffer buffer = borrowBuffer();
+        try {
+            JsonWriter writer = new JsonWriter(out, buffer);
+            writer.raw('[');
+            for (int i = 0; i < messages.size(); i++) {
+                if (i > 0) {
+                    writer.raw(',');
+                }
+                writeMessage(writer, messages.get(i));
+            }
+            writer.raw(']');
+            writer.flush();
+        } finally {
+            BUFFERS.set(buffer);
+        }
+    }
+
+    /**
+     * Read a single JSON message object. The stream may be read past the end of
+     * the object, so it should contain nothing else.
+     *
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    public Message read(InputStream in) throws IOException {
+        return readMessage(new JsonReader(in));
+    }
+
+    /**
+     * Read a JSON array of messages.
+     *
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    public List<Message> readAll(InputStream in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        List<Message> messages = new ArrayList<>();
+        reader.expect('[');
+        if (reader.peek() == ']') {
+            reader.next();
+            return messages;
+        }
+        do {
+            messages.add(readMessage(reader));
+        } while (reader.consumeComma(']'));
+        return messages;
+    }
+
+    private static ByteBuffer borrowBuffer() {
+        ByteBuffer buffer = BUFFERS.get();
+        if (buffer == null) {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        BUFFERS.remove();
+        return buffer.clear();
+    }
+
+    private static void writeMessage(JsonWriter writer, Message message) throws IOException {
+        writer.raw('{');
+        writer.field("role", message.getRole().toWireValue(), true);
+        String content = message.getContent().orElse(null);
+        if (content != null) {
+            writer.field("content", content, false);
+        }
+        List<ToolCall> calls = message.getToolCalls();
+        if (!calls.isEmpty()) {
+            writer.name("tool_calls", false);
+            writer.raw('[');
+            for (int i = 0; i < calls.size(); i++) {
+                ToolCall call = calls.get(i);
+                if (i > 0) {
+                    writer.raw(',');
+                }
+                writer.raw('{');
+                writer.field("id", call.getId(), true);
+                writer.field("type", call.getType(), false);
+                writer.name("function", false);
+                writer.raw('{');
+                writer.field("name", call.getFunction().getName(), true);
+                writer.field("arguments", call.getFunction().getArguments(), false);
+                writer.raw('}');
+                writer.raw('}');
+            }
+            writer.raw(']');
+        }
+        String name = message.getName().orElse(null);
+        if (name != null) {
+            writer.field("name", name, false);
+        }
+        String toolCallId = message.getToolCallId().orElse(null);
+        if (toolCallId != null) {
+            writer.field("tool_call_id", toolCallId, false);
+        }
+        writer.raw('}');
+    }
+
+    private static Message readMessage(JsonReader reader) throws IOException {
+        Message.Builder builder = Message.builder();
+        Role role = null;
+        reader.expect('{');
+        if (reader.peek() != '}') {
+            do {
+                String key = reader.readString();
+                reader.expect(':');
+                switch (key) {
+                    case "role" -> role = parseRole(reader.readString());
+                    case "content" -> builder.content(reader.readNullableString());
+                    case "name" -> builder.name(reader.readNullableString());
+                    case "tool_call_id" -> builder.toolCallId(reader.readNullableString());
+                    case "tool_calls" -> builder.toolCalls(readToolCalls(reader));
+                    default -> reader.skipValue();
+                }
+            } while (reader.consumeComma('}'));
+        } else {
+            reader.next();
+        }
+        return builder.role(required(role, "role")).build();
+    }
+
+    private static List<ToolCall> readToolCalls(JsonReader reader) throws IOException {
+        List<ToolCall> calls = new ArrayList<>();
+        if (reader.consumeNull()) {
+            return calls;
+        }
+        reader.expect('[');
+        if (reader.peek() == ']') {
+            reader.next();
+            return calls;
+        }
+        do {
+            String id = null;
+            String type = "function";
+            String name = null;
+            String arguments = null;
+            reader.expect('{');
+            if (reader.peek() != '}') {
+                do {
+                    String key = reader.readString();
+                    reader.expect(':');
+                    switch (key) {
+                        case "id" -> id = reader.readString();
+                        case "type" -> type = reader.readString();
+                        case "function" -> {
+                            reader.expect('{');
+                            if (reader.peek() != '}') {
+                                do {
+                                    String fnKey = reader.readString();
+                                    reader.expect(':');
+                                    switch (fnKey) {
+                                        case "name" -> name = reader.readString();
+                                        case "arguments" -> arguments = reader.readString();
+                                        default -> reader.skipValue();
+                                    }
+                                } while (reader.consumeComma('}'));
+                            } else {
+                                reader.next();
+                            }
+                        }
+                        default -> reader.skipValue();
+                    }
+                } while (reader.consumeComma('}'));
+            } else {
+                reader.next();
+            }
+            calls.add(new ToolCall(required(id, "tool_calls.id"), type, new FunctionCall(
+                    required(name, "tool_calls.function.name"),
+                    required(arguments, "tool_calls.function.arguments"))));
+        } while (reader.consumeComma(']'));
+        return calls;
+    }
+
+    private static <T> T required(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Message object is missing required field '" + field + "'");
+        }
+        return value;
+    }
+
+    private static Role parseRole(String value) throws IOException {
+        try {
+            return Role.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown role: " + value, e);
+        }
+    }
+
+    private static final class JsonWriter {
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        private final OutputStream out;
+        private final ByteBuffer buffer;
+
+        JsonWriter(OutputStream out, ByteBuffer buffer) {
+            this.out = out;
+            this.buffer = buffer;
+        }
+
+        void raw(char c) throws IOException {
+            ensure(1);
+            buffer.put((byte) c);
+        }
+
+        void name(String name, boolean first) throws IOException {
+            if (!first) {
+                raw(',');
+            }
+            string(name);
+            raw(':');
+        }
+
+        void field(String name, String value, boolean first) throws IOException {
+            name(name, first);
+            string(value);
+        }
+
+        void string(String value) throws IOException {
+            raw('"');
+            int length = value.length();
+            int i = 0;
+            while (i < length) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    ensure(2);
+                    buffer.put((byte) '\\').put((byte) c);
+                } else if (c < 0x20) {
+                    escapeControl(c);
+                } else if (c < 0x80) {
+                    ensure(1);
+                    buffer.put((byte) c);
+                } else {
+                    ensure(4);
+                    i += Utf8.encode(value, i, buffer);
+                    continue;
+                }
+                i++;
+            }
+            raw('"');
+        }
+
+        private void escapeControl(char c) throws IOException {
+            ensure(6);
+            buffer.put((byte) '\\');
+            switch (c) {
+                case '\n' -> buffer.put((byte) 'n');
+                case '\r' -> buffer.put((byte) 'r');
+                case '\t' -> buffer.put((byte) 't');
+                case '\b' -> buffer.put((byte) 'b');
+                case '\f' -> buffer.put((byte) 'f');
+                default -> buffer.put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flushBuffer();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+    }
+
+    private static final class JsonReader {
+        private final Reader in;
+        private final char[] chunk = new char[4096];
+        private final StringBuilder text = new StringBuilder();
+        private int position;
+        private int limit;
+
+        JsonReader(InputStream in) {
+            this.in = new InputStreamReader(in, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return next non-whitespace character without consuming it, or -1 at end of input
+         */
+        int peek() throws IOException {
+            while (true) {
+                if (position == limit && !fill()) {
+                    return -1;
+                }
+                char c = chunk[position];
+                if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    position++;
+                } else {
+                    return c;
+                }
+            }
+        }
+
+        char next() throws IOException {
+            int c = peek();
+            if (c < 0) {
+                throw new IOException("Unexpected end of JSON input");
+            }
+            position++;
+            return (char) c;
+        }
+
+        void expect(char expected) throws IOException {
+            char c = next();
+            if (c != expected) {
+                throw new IOException("Expected '" + expected + "' but found '" + c + "'");
+            }
+        }
+
+        /**
+         * Consume either a comma, returning {@code true}, or {@code close},
+         * returning {@code false}.
+         */
+        boolean consumeComma(char close) throws IOException {
+            char c = next();
+            if (c == ',') {
+                return true;
+            }
+            if (c == close) {
+                return false;
+            }
+            throw new IOException("Expected ',' or '" + close + "' but found '" + c + "'");
+        }
+
+        boolean consumeNull() throws IOException {
+            if (peek() != 'n') {
+                return false;
+            }
+            literal("null");
+            return true;
+        }
+
+        String readNullableString() throws IOException {
+            return consumeNull() ? null : readString();
+        }
+
+        String readString() throws IOException {
+            expect('"');
+            text.setLength(0);
+            while (true) {
+                if (position == limit && !fill()) {
+                    throw new IOException("Unterminated JSON string");
+                }
+                // Copy the run of plain characters in bulk.
+                int start = position;
+                while (position < limit && chunk[position] != '"' && chunk[position] != '\\') {
+                    position++;
+                }
+                text.append(chunk, start, position - start);
+                if (position == limit) {
+                    continue;
+                }
+                char c = chunk[position++];
+                if (c == '"') {
+                    return text.toString();
+                }
+                text.append(unescape(raw()));
+            }
+        }
+
+        void skipValue() throws IOException {
+            int c = peek();
+            switch (c) {
+                case '"' -> readString();
+                case '{', '[' -> {
+                    char close = c == '{' ? '}' : ']';
+                    next();
+                    if (peek() == close) {
+                        next();
+                        return;
+                    }
+                    do {
+                        if (close == '}') {
+                            readString();
+                            expect(':');
+                        }
+                        skipValue();
+                    } while (consumeComma(close));
+                }
+                case 't' -> literal("true");
+                case 'f' -> literal("false");
+                case 'n' -> literal("null");
+                default -> {
+                    if (c != '-' && (c < '0' || c > '9')) {
+                        throw new IOException("Unexpected JSON value");
+                    }
+                    while (true) {
+                        if (position == limit && !fill()) {
+                            return;
+                        }
+                        char d = chunk[position];
+                        if ((d >= '0' && d <= '9') || d == '-' || d == '+' || d == '.' || d == 'e' || d == 'E') {
+                            position++;
+                        } else {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void literal(String expected) throws IOException {
+            for (int i = 0; i < expected.length(); i++) {
+                if (raw() != expected.charAt(i)) {
+                    throw new IOException("Expected " + expected);
+                }
+            }
+        }
+
+        private char unescape(char c) throws IOException {
+            return switch (c) {
+                case '"', '\\', '/' -> c;
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'u' -> {
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(raw(), 16);
+                        if (digit < 0) {
+                            throw new IOException("Invalid unicode escape");
+                        }
+                        value = (value << 4) | digit;
+                    }
+                    yield (char) value;
+                }
+                default -> throw new IOException("Invalid escape character '" + c + "'");
+            };
+        }
+
+        private char raw() throws IOException {
+            if (position == limit && !fill()) {
+                throw new IOException("Unexpected end of JSON input");
+            }
+            return chunk[position++];
+        }
+
+        private boolean fill() throws IOException {
+            int read = in.read(chunk);
+            if (read <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        }
+    }
+}
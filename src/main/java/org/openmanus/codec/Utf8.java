@@ -0,0 +1,70 @@
+package org.openmanus.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation-free UTF-8 sizing and encoding. Unpaired surrogates are encoded as
+ * {@code '?'}, matching {@link String#getBytes(java.nio.charset.Charset)}.
+ */
+final class Utf8 {
+    private Utf8() {}
+
+    static int length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    static void encode(String value, ByteBuffer target) {
+        int i = 0;
+        while (i < value.length()) {
+            i += encode(value, i, target);
+        }
+    }
+
+    /**
+     * Encode the character at {@code index}, together with its low surrogate if
+     * it starts a pair. Writes at most four bytes.
+     *
+     * @return number of chars consumed
+     */
+    static int encode(String value, int index, ByteBuffer target) {
+        char c = value.charAt(index);
+        if (c < 0x80) {
+            target.put((byte) c);
+        } else if (c < 0x800) {
+            target.put((byte) (0xC0 | (c >> 6)));
+            target.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            target.put((byte) (0xF0 | (codePoint >> 18)));
+            target.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            target.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            target.put((byte) (0x80 | (codePoint & 0x3F)));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            target.put((byte) '?');
+        } else {
+            target.put((byte) (0xE0 | (c >> 12)));
+            target.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            target.put((byte) (0x80 | (c & 0x3F)));
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,64 @@
+package org.openmanus.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Access to the shared executor used for asynchronous agent runs and LLM calls.
+ *
+ * <p>The project targets Java 17, so virtual threads are looked up reflectively.
+ * On a Java 21+ runtime every task gets its own virtual thread; on older
+ * runtimes tasks fall back to a cached pool of daemon platform threads.</p>
+ */
+public final class VirtualThreads {
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreads.class.getName());
+
+    private VirtualThreads() {}
+
+    /**
+     * @return the process-wide executor for blocking agent and LLM work
+     */
+    public static ExecutorService executor() {
+        return Holder.EXECUTOR;
+    }
+
+    /**
+     * @return whether {@link #executor()} runs tasks on virtual threads
+     */
+    public static boolean isVirtual() {
+        return Holder.VIRTUAL;
+    }
+
+    private static final class Holder {
+        private static final boolean VIRTUAL;
+        private static final ExecutorService EXECUTOR;
+
+        static {
+            ExecutorService executor = null;
+            try {
+                executor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Virtual threads unavailable, using platform threads", e);
+            }
+            VIRTUAL = executor != null;
+            EXECUTOR = executor != null ? executor : Executors.newCachedThreadPool(new DaemonThreadFactory());
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "openmanus-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -8,5 +8,6 @@ public enum AgentState {
     IDLE,
     RUNNING,
     FINISHED,
-    ERROR
+    ERROR,
+    CANCELLED
 }
@@ -0,0 +1,205 @@
+package org.openmanus.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openmanus.exception.CancelledException;
+
+/**
+ * Cooperative cancellation signal shared by an agent run and the LLM calls it
+ * makes. A token is cancelled explicitly through {@link #cancel(String)} or
+ * automatically when its deadline passes. Code holding the token either polls
+ * {@link #isCancelled()} at convenient points or registers an
+ * {@link #onCancel(Runnable) abort callback} for work that blocks.
+ */
+public final class CancellationToken {
+    private static final Logger LOGGER = Logger.getLogger(CancellationToken.class.getName());
+    private static final CancellationToken NONE = new CancellationToken(false, 0);
+
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
+    private volatile String reason;
+    // Guarded by this; null once the token is cancelled.
+    private List<Runnable> callbacks = new ArrayList<>();
+    private ScheduledFuture<?> timer;
+
+    private CancellationToken(boolean hasDeadline, long deadlineNanos) {
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @return shared token that is never cancelled
+     */
+    public static CancellationToken none() {
+        return NONE;
+    }
+
+    /**
+     * @return token without a deadline that is cancelled only explicitly
+     */
+    public static CancellationToken create() {
+        return new CancellationToken(false, 0);
+    }
+
+    /**
+     * @param timeout time after which the token cancels itself
+     * @return token that is cancelled when the timeout elapses
+     */
+    public static CancellationToken withTimeout(Duration timeout) {
+        Objects.requireNonNull(timeout, "timeout");
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must be non-negative");
+        }
+        long nanos = timeout.toNanos();
+        CancellationToken token = new CancellationToken(true, System.nanoTime() + nanos);
+        ScheduledFuture<?> timer = Deadlines.TIMER.schedule(
+                () -> token.cancel("Deadline exceeded"), nanos, TimeUnit.NANOSECONDS);
+        synchronized (token) {
+            if (token.callbacks != null) {
+                token.timer = timer;
+                return token;
+            }
+        }
+        timer.cancel(false);
+        return token;
+    }
+
+    /**
+     * Cancels the token and runs the registered callbacks on the calling thread.
+     *
+     * @param reason human readable cause reported by {@link #getReason()}
+     * @return {@code true} if this call cancelled the token
+     */
+    public boolean cancel(String reason) {
+        Objects.requireNonNull(reason, "reason");
+        if (this == NONE) {
+            throw new UnsupportedOperationException("CancellationToken.none() cannot be cancelled");
+        }
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (callbacks == null) {
+                return false;
+            }
+            this.reason = reason;
+            toRun = callbacks;
+            callbacks = null;
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+        }
+        toRun.forEach(CancellationToken::runCallback);
+        return true;
+    }
+
+    /**
+     * @return {@code true} once the token was cancelled or its deadline passed
+     */
+    public boolean isCancelled() {
+        if (reason != null) {
+            return true;
+        }
+        if (hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+            cancel("Deadline exceeded");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if this token can ever be cancelled
+     */
+    public boolean isCancellable() {
+        return this != NONE;
+    }
+
+    public Optional<String> getReason() {
+        return isCancelled() ? Optional.of(reason) : Optional.empty();
+    }
+
+    /**
+     * @return time left before the deadline, or empty when the token has none
+     */
+    public Optional<Duration> remaining() {
+        if (!hasDeadline) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime())));
+    }
+
+    /**
+     * @throws CancelledException if the token is cancelled
+     */
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancelledException(reason);
+        }
+    }
+
+    /**
+     * Registers a callback that runs once when the token is cancelled. If the
+     * token is already cancelled the callback runs immediately.
+     *
+     * @return registration to close once the guarded work completes
+     */
+    public Registration onCancel(Runnable callback) {
+        Objects.requireNonNull(callback, "callback");
+        if (this != NONE && !isCancelled()) {
+            synchronized (this) {
+                if (callbacks != null) {
+                    callbacks.add(callback);
+                    return () -> {
+                        synchronized (this) {
+                            if (callbacks != null) {
+                                callbacks.remove(callback);
+                            }
+                        }
+                    };
+                }
+            }
+        }
+        if (this != NONE) {
+            runCallback(callback);
+        }
+        return () -> { };
+    }
+
+    private static void runCallback(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Cancellation callback failed", e);
+        }
+    }
+
+    /**
+     * Handle returned by {@link #onCancel(Runnable)}; closing it unregisters the callback.
+     */
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Deadlines {
+        private static final ScheduledThreadPoolExecutor TIMER = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "openmanus-deadlines");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.openmanus.core;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * Content-addressed pool that lets many agents share one copy of identical
+ * message contents and prebuilt system prompt messages.
+ *
+ * <p>Interned strings are held weakly, so a string leaves the pool once no
+ * message references it; the table is striped to keep contention low when many
+ * agents intern concurrently. Prebuilt system messages are kept in a
+ * size-bounded LRU because they are typically only referenced for the duration
+ * of a single LLM call.</p>
+ */
+public final class ContentPool {
+    private static final ContentPool SHARED = new ContentPool(1_024);
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<String, List<Message>> systemMessages;
+
+    /**
+     * @param maxSystemPrompts number of distinct system prompts kept prebuilt
+     */
+    public ContentPool(int maxSystemPrompts) {
+        if (maxSystemPrompts <= 0) {
+            throw new IllegalArgumentException("maxSystemPrompts must be positive");
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.systemMessages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Message>> eldest) {
+                return size() > maxSystemPrompts;
+            }
+        };
+    }
+
+    /**
+     * @return the process-wide pool
+     */
+    public static ContentPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the pooled instance equal to {@code value}, or {@code null} for null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        Stripe stripe = stripes[spread(value.hashCode()) & (STRIPES - 1)];
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.strings.get(value);
+            String pooled = reference != null ? reference.get() : null;
+            if (pooled != null) {
+                return pooled;
+            }
+            stripe.strings.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * @return a shared, immutable single-element list holding the system message
+     *     for {@code prompt}
+     */
+    public List<Message> systemMessages(String prompt) {
+        Objects.requireNonNull(prompt, "prompt");
+        synchronized (systemMessages) {
+            List<Message> cached = systemMessages.get(prompt);
+            if (cached == null) {
+                cached = List.of(Message.system(intern(prompt)));
+                systemMessages.put(cached.get(0).getContent().orElseThrow(), cached);
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * @return the shared system message for {@code prompt}
+     */
+    public Message systemMessage(String prompt) {
+        return systemMessages(prompt).get(0);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe {
+        private final WeakHashMap<String, WeakReference<String>> strings = new WeakHashMap<>();
+    }
+}
@@ -1,84 +1,546 @@
 package org.openmanus.core;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Rolling memory buffer for conversation messages.
+ *
+ * <p>Messages are appended to a sliding window over an array whose slots are
+ * never overwritten once written: eviction only advances the window start, and
+ * when the array is exhausted the live messages move to a freshly allocated one.
+ * This lets {@link #asList()} and {@link #recentMessages(int)} hand out
+ * immutable snapshot views in constant time, while appends stay amortized
+ * constant time.</p>
+ *
+ * <p>Besides the message count limit, a memory can be bounded by an estimated
+ * token budget. Each message's estimate is computed once on insertion and kept
+ * as a running prefix sum, so the live total and
+ * {@link #recentMessagesWithinTokens(int)} need no rescans.</p>
+ *
+ * <p>An optional {@link MessageStore} makes the memory durable: its contents are
+ * replayed on construction and every append, eviction and clear is mirrored to
+ * it.</p>
+ *
+ * <p>Assistant message contents are indexed as they enter and leave the buffer so
+ * duplicate lookups used for stuck detection run in constant time. With a
+ * {@link SimilarityIndex} they are also fingerprinted once on insertion, so
+ * near-duplicates of the newest reply can be counted without rescanning the
+ * history.</p>
+ *
+ * <p>A memory can be shared between an agent loop, tool workers and background
+ * jobs without external locking. Because array slots are written once, every
+ * mutation ends by publishing an immutable {@link State} through a volatile
+ * field. Readers never lock: each read works on one published state, so
+ * {@link #asList()}, {@link #recentMessages(int)} and friends are consistent
+ * point-in-time snapshots. Writers take a short lock around the append, its
+ * FIFO eviction and the store mirroring. This keeps eviction order and store
+ * order exact under contention; {@link #addMessages(List)} appends its batch
+ * contiguously.</p>
  */
 public final class Memory {
-    private final Deque<Message> messages = new ArrayDeque<>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<String, Integer> assistantContentCounts = new ConcurrentHashMap<>();
     private final int maxMessages;
+    private final long maxTokens;
+    private final TokenEstimator tokenEstimator;
+    private final MessageStore store;
+    private final SimilarityIndex similarityIndex;
+    // A lock rather than synchronized so writers blocked here do not pin virtual threads.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Writer-side fields, guarded by writeLock; readers only see them through state.
+    private Message[] buffer = new Message[INITIAL_CAPACITY];
+    // tokenSums[i] is the estimated token total of buffer slots [0, i).
+    private long[] tokenSums = new long[INITIAL_CAPACITY + 1];
+    // Similarity fingerprints per slot, allocated only with a similarity index.
+    private long[] fingerprints;
+    private int start;
+    private int end;
+    private long evictions;
+    private volatile State state = new State(buffer, tokenSums, 0, 0, 0);
 
     public Memory() {
         this(100);
     }
 
     public Memory(int maxMessages) {
+        this(maxMessages, Long.MAX_VALUE, TokenEstimator.DEFAULT, null, null);
+    }
+
+    private Memory(int maxMessages, long maxTokens, TokenEstimator tokenEstimator, MessageStore store,
+            SimilarityIndex similarityIndex) {
         if (maxMessages <= 0) {
             throw new IllegalArgumentException("maxMessages must be positive");
         }
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("maxTokens must be positive");
+        }
         this.maxMessages = maxMessages;
+        this.maxTokens = maxTokens;
+        this.tokenEstimator = Objects.requireNonNull(tokenEstimator, "tokenEstimator");
+        this.store = store;
+        this.similarityIndex = similarityIndex;
+        if (similarityIndex != null) {
+            fingerprints = new long[INITIAL_CAPACITY];
+        }
+        if (store != null) {
+            store.load(this::append);
+            publish();
+            if (evictions > 0) {
+                store.retain(asList());
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
     }
 
     public void addMessage(Message message) {
         Objects.requireNonNull(message, "message");
-        if (messages.size() == maxMessages) {
-            messages.removeFirst();
+        writeLock.lock();
+        try {
+            long evictedBefore = evictions;
+            append(message);
+            publish();
+            if (store != null) {
+                store.append(message);
+                if (evictions != evictedBefore) {
+                    store.retain(asList());
+                }
+            }
+        } finally {
+            writeLock.unlock();
         }
-        messages.addLast(message);
     }
 
     public void addMessages(List<Message> newMessages) {
         Objects.requireNonNull(newMessages, "newMessages");
-        for (Message message : newMessages) {
-            addMessage(message);
+        writeLock.lock();
+        try {
+            for (Message message : newMessages) {
+                addMessage(message);
+            }
+        } finally {
+            writeLock.unlock();
         }
     }
 
     public void clear() {
-        messages.clear();
+        writeLock.lock();
+        try {
+            if (store != null) {
+                store.clear();
+            }
+            buffer = new Message[INITIAL_CAPACITY];
+            tokenSums = new long[INITIAL_CAPACITY + 1];
+            start = 0;
+            end = 0;
+            clearIndexes();
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Atomically replace the {@code count} oldest messages with
+     * {@code replacement}, provided they are still exactly {@code expected}
+     * (compared by identity). Used to swap in summaries computed from an earlier
+     * snapshot; if the history has since been evicted or cleared the call does
+     * nothing.
+     *
+     * @param expected the oldest messages as observed in an earlier snapshot
+     * @param replacement message taking their place
+     * @return whether the replacement was applied
+     */
+    public boolean replaceOldest(List<Message> expected, Message replacement) {
+        Objects.requireNonNull(expected, "expected");
+        Objects.requireNonNull(replacement, "replacement");
+        writeLock.lock();
+        try {
+            return replaceOldestLocked(expected, replacement);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean replaceOldestLocked(List<Message> expected, Message replacement) {
+        int count = expected.size();
+        if (count == 0 || count > end - start) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (buffer[start + i] != expected.get(i)) {
+                return false;
+            }
+        }
+        List<Message> remaining = new Window(buffer, start + count, end);
+        // Rebuild into fresh arrays so snapshots handed out earlier stay intact.
+        int capacity = buffer.length;
+        buffer = new Message[capacity];
+        tokenSums = new long[capacity + 1];
+        start = 0;
+        end = 0;
+        clearIndexes();
+        append(replacement);
+        for (Message message : remaining) {
+            append(message);
+        }
+        publish();
+        if (store != null) {
+            store.rewrite(asList());
+        }
+        return true;
+    }
+
+    public int size() {
+        State current = state;
+        return current.end - current.start;
+    }
+
+    /**
+     * @return number of messages held before the oldest are evicted
+     */
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    /**
+     * @return number of messages dropped by count or token eviction since creation
+     */
+    public long evictionCount() {
+        return state.evictions;
     }
 
+    /**
+     * @return estimated token total of the messages currently held
+     */
+    public long tokenCount() {
+        return state.tokenCount();
+    }
+
+    public Optional<Message> lastMessage() {
+        State current = state;
+        return current.end > current.start ? Optional.of(current.buffer[current.end - 1]) : Optional.empty();
+    }
+
+    /**
+     * @return immutable snapshot of the current history; later changes to this
+     *     memory are not reflected in it
+     */
     public List<Message> asList() {
-        return Collections.unmodifiableList(new ArrayList<>(messages));
+        return state.asList();
     }
 
     public Optional<Message> lastAssistantMessage() {
-        return reverseStream()
-                .filter(msg -> msg.getRole() == Role.ASSISTANT)
-                .findFirst();
+        return lastWithRole(Role.ASSISTANT);
     }
 
     public Optional<Message> lastUserMessage() {
-        return reverseStream()
-                .filter(msg -> msg.getRole() == Role.USER)
-                .findFirst();
+        return lastWithRole(Role.USER);
     }
 
+    /**
+     * @return immutable snapshot of at most {@code count} of the newest messages
+     */
     public List<Message> recentMessages(int count) {
         if (count < 0) {
             throw new IllegalArgumentException("count must be non-negative");
         }
-        return Collections.unmodifiableList(
-                asList().subList(Math.max(0, messages.size() - count), messages.size()));
+        State current = state;
+        return count >= current.end - current.start
+                ? current.asList()
+                : new Window(current.buffer, current.end - count, current.end);
+    }
+
+    /**
+     * Select the newest messages whose estimated tokens fit in {@code budget}.
+     *
+     * @param budget maximum estimated token total
+     * @return immutable snapshot of the longest suffix of the history that fits
+     */
+    public List<Message> recentMessagesWithinTokens(int budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("budget must be non-negative");
+        }
+        State current = state;
+        long[] sums = current.tokenSums;
+        // Binary search the oldest slot whose suffix total still fits.
+        int low = current.start;
+        int high = current.end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sums[current.end] - sums[mid] <= budget) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low == current.start ? current.asList() : new Window(current.buffer, low, current.end);
     }
 
     public long countAssistantMessagesWithContent(String content) {
-        return messages.stream()
-                .filter(msg -> msg.getRole() == Role.ASSISTANT)
-                .filter(msg -> msg.getContent().map(content::equals).orElse(false))
-                .count();
+        Objects.requireNonNull(content, "content");
+        return assistantContentCounts.getOrDefault(content, 0);
+    }
+
+    /**
+     * Count assistant messages whose content is similar to the newest message
+     * according to the configured {@link SimilarityIndex}, the newest message
+     * included. Unlike the other reads this briefly takes the write lock, since
+     * the index is maintained by writers.
+     *
+     * @return the count, or 0 if the newest message is not an indexed assistant
+     *     reply or no similarity index is configured
+     */
+    public int countAssistantMessagesSimilarToLast() {
+        if (similarityIndex == null) {
+            return 0;
+        }
+        writeLock.lock();
+        try {
+            if (end == start || !isFingerprinted(buffer[end - 1])) {
+                return 0;
+            }
+            return similarityIndex.countSimilar(fingerprints[end - 1]);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return whether near-duplicate lookups are available
+     */
+    public boolean hasSimilarityIndex() {
+        return similarityIndex != null;
+    }
+
+    private Optional<Message> lastWithRole(Role role) {
+        State current = state;
+        for (int i = current.end - 1; i >= current.start; i--) {
+            if (current.buffer[i].getRole() == role) {
+                return Optional.of(current.buffer[i]);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Move the live messages to a new array so existing snapshots, which still
+     * reference the old one, stay valid. Capacity grows towards twice
+     * {@code maxMessages}, so a full buffer relocates once every
+     * {@code maxMessages} appends.
+     */
+    private void relocate() {
+        int live = end - start;
+        long target = Math.max(INITIAL_CAPACITY, 2L * (live + 1));
+        int capacity = (int) Math.min(target, Math.min(2L * maxMessages, Integer.MAX_VALUE - 8));
+        Message[] next = new Message[Math.max(capacity, live + 1)];
+        System.arraycopy(buffer, start, next, 0, live);
+        long[] nextSums = new long[next.length + 1];
+        for (int i = 1; i <= live; i++) {
+            nextSums[i] = tokenSums[start + i] - tokenSums[start];
+        }
+        if (fingerprints != null) {
+            long[] nextFingerprints = new long[next.length];
+            System.arraycopy(fingerprints, start, nextFingerprints, 0, live);
+            fingerprints = nextFingerprints;
+        }
+        buffer = next;
+        tokenSums = nextSums;
+        start = 0;
+        end = live;
+    }
+
+    private void append(Message message) {
+        if (end - start == maxMessages) {
+            evictOldest();
+        }
+        if (end == buffer.length) {
+            relocate();
+        }
+        int tokens = Math.max(0, tokenEstimator.estimate(message));
+        buffer[end] = message;
+        tokenSums[end + 1] = tokenSums[end] + tokens;
+        index(message, end);
+        end++;
+        // The newest message is always kept, even if it alone exceeds the budget.
+        while (tokenSums[end] - tokenSums[start] > maxTokens && end - start > 1) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Make the writer-side fields visible to readers. Called once per public
+     * mutation so readers never observe a half-applied one.
+     */
+    private void publish() {
+        state = new State(buffer, tokenSums, start, end, evictions);
+    }
+
+    private void evictOldest() {
+        unindex(start++);
+        evictions++;
+    }
+
+    private void index(Message message, int slot) {
+        if (message.getRole() == Role.ASSISTANT) {
+            message.getContent().ifPresent(content -> assistantContentCounts.merge(content, 1, Integer::sum));
+            if (isFingerprinted(message)) {
+                long fingerprint = similarityIndex.fingerprint(message.getContent().get());
+                fingerprints[slot] = fingerprint;
+                similarityIndex.add(fingerprint);
+            }
+        }
+    }
+
+    private void unindex(int slot) {
+        Message message = buffer[slot];
+        if (message.getRole() == Role.ASSISTANT) {
+            message.getContent().ifPresent(content -> assistantContentCounts.computeIfPresent(
+                    content, (key, count) -> count == 1 ? null : count - 1));
+            if (isFingerprinted(message)) {
+                similarityIndex.remove(fingerprints[slot]);
+            }
+        }
+    }
+
+    private boolean isFingerprinted(Message message) {
+        return similarityIndex != null
+                && message.getRole() == Role.ASSISTANT
+                && message.getContent().filter(content -> !content.isBlank()).isPresent();
+    }
+
+    private void clearIndexes() {
+        assistantContentCounts.clear();
+        if (similarityIndex != null) {
+            similarityIndex.clear();
+            fingerprints = new long[buffer.length];
+        }
     }
 
-    private java.util.stream.Stream<Message> reverseStream() {
-        List<Message> copy = new ArrayList<>(messages);
-        Collections.reverse(copy);
-        return copy.stream();
+    /**
+     * Builder for memories with a token budget or a custom {@link TokenEstimator}.
+     */
+    public static final class Builder {
+        private int maxMessages = 100;
+        private long maxTokens = Long.MAX_VALUE;
+        private TokenEstimator tokenEstimator = TokenEstimator.DEFAULT;
+        private MessageStore store;
+        private SimilarityIndex similarityIndex;
+
+        private Builder() {}
+
+        public Builder maxMessages(int maxMessages) {
+            this.maxMessages = maxMessages;
+            return this;
+        }
+
+        /**
+         * Evict the oldest messages whenever the estimated token total exceeds
+         * {@code maxTokens}.
+         */
+        public Builder maxTokens(long maxTokens) {
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        public Builder tokenEstimator(TokenEstimator tokenEstimator) {
+            this.tokenEstimator = tokenEstimator;
+            return this;
+        }
+
+        /**
+         * Persist the memory in {@code store}; messages already in the store are
+         * restored when the memory is built.
+         */
+        public Builder store(MessageStore store) {
+            this.store = store;
+            return this;
+        }
+
+        /**
+         * Fingerprint assistant replies into {@code similarityIndex} so stuck
+         * detection also catches near-duplicates. The index must be empty and
+         * not shared with another memory.
+         */
+        public Builder similarityIndex(SimilarityIndex similarityIndex) {
+            this.similarityIndex = similarityIndex;
+            return this;
+        }
+
+        public Memory build() {
+            return new Memory(maxMessages, maxTokens, tokenEstimator, store, similarityIndex);
+        }
+    }
+
+    /**
+     * Immutable view of the memory published after every mutation. Slots below
+     * {@code end} are never rewritten, so the arrays may be shared with the
+     * writer, which only touches slots past the published end.
+     */
+    private static final class State {
+        private final Message[] buffer;
+        private final long[] tokenSums;
+        private final int start;
+        private final int end;
+        private final long evictions;
+        // Racy but benign cache: Window has only final fields.
+        private List<Message> view;
+
+        State(Message[] buffer, long[] tokenSums, int start, int end, long evictions) {
+            this.buffer = buffer;
+            this.tokenSums = tokenSums;
+            this.start = start;
+            this.end = end;
+            this.evictions = evictions;
+        }
+
+        long tokenCount() {
+            return tokenSums[end] - tokenSums[start];
+        }
+
+        List<Message> asList() {
+            List<Message> cached = view;
+            if (cached == null) {
+                cached = new Window(buffer, start, end);
+                view = cached;
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Read-only view over a range of array slots that are never rewritten.
+     */
+    private static final class Window extends AbstractList<Message> implements RandomAccess {
+        private final Message[] array;
+        private final int from;
+        private final int to;
+
+        Window(Message[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Message get(int index) {
+            Objects.checkIndex(index, to - from);
+            return array[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
     }
 }
@@ -18,12 +18,13 @@ public final class Message {
     private final String toolCallId;
 
     private Message(Builder builder) {
+        ContentPool pool = builder.contentPool;
         this.role = Objects.requireNonNull(builder.role, "role");
-        this.content = builder.content;
+        this.content = pool != null ? pool.intern(builder.content) : builder.content;
         this.toolCalls = builder.toolCalls == null
                 ? List.of()
                 : List.copyOf(builder.toolCalls);
-        this.name = builder.name;
+        this.name = pool != null ? pool.intern(builder.name) : builder.name;
         this.toolCallId = builder.toolCallId;
     }
 
@@ -111,6 +112,7 @@ public final class Message {
         private List<ToolCall> toolCalls;
         private String name;
         private String toolCallId;
+        private ContentPool contentPool;
 
         private Builder() {}
 
@@ -139,6 +141,14 @@ public final class Message {
             return this;
         }
 
+        /**
+         * Share the content and name strings through {@code contentPool}.
+         */
+        public Builder contentPool(ContentPool contentPool) {
+            this.contentPool = contentPool;
+            return this;
+        }
+
         public Message build() {
             return new Message(this);
         }
@@ -0,0 +1,43 @@
+package org.openmanus.core;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Durable backing for a {@link Memory}. The memory replays the store when it is
+ * built and mirrors every later change into it.
+ */
+public interface MessageStore {
+    /**
+     * Replay the persisted messages, oldest first.
+     *
+     * @param sink receives each message in order
+     */
+    void load(Consumer<Message> sink);
+
+    /**
+     * Persist a message appended to the memory.
+     */
+    void append(Message message);
+
+    /**
+     * Drop every persisted message.
+     */
+    void clear();
+
+    /**
+     * Replace the persisted messages with {@code live}, used when the memory
+     * rewrites its history rather than appending to it.
+     *
+     * @param live immutable snapshot of the memory contents, oldest first
+     */
+    void rewrite(List<Message> live);
+
+    /**
+     * Called after the memory evicted messages, with the messages it still holds.
+     * Stores may use this to reclaim space taken by evicted messages.
+     *
+     * @param live immutable snapshot of the memory contents, oldest first
+     */
+    default void retain(List<Message> live) {}
+}
@@ -0,0 +1,191 @@
+package org.openmanus.core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link SimilarityIndex} based on 64-bit SimHash fingerprints. Two contents are
+ * similar when their fingerprints differ in at most {@code maxDistance} bits.
+ *
+ * <p>Before hashing, text is lower-cased, digit runs are collapsed and
+ * punctuation and whitespace only separate words. Words and word pairs are the
+ * hashed features, so replies that differ in counters, spacing or a few words
+ * land within a small Hamming distance.</p>
+ *
+ * <p>Lookups avoid a scan: a fingerprint is split into {@code maxDistance + 1}
+ * bands, and each band value maps to the distinct fingerprints containing it.
+ * By the pigeonhole principle, two fingerprints within {@code maxDistance} bits
+ * share at least one band exactly, so only that band's fingerprints are
+ * compared.</p>
+ */
+public final class SimHashIndex implements SimilarityIndex {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int maxDistance;
+    private final int bandWidth;
+    private final Map<Long, Integer> counts = new HashMap<>();
+    private final Map<Long, Set<Long>> bands = new HashMap<>();
+
+    /**
+     * Index with a distance of 8 bits. For replies of a few sentences, a changed
+     * word or number typically moves the fingerprint by 1 to 10 bits, while
+     * unrelated replies differ by 20 or more.
+     */
+    public SimHashIndex() {
+        this(8);
+    }
+
+    /**
+     * @param maxDistance largest Hamming distance, in bits, treated as similar; 0
+     *     to 15; larger distances mean narrower bands and more candidates per lookup
+     */
+    public SimHashIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > 15) {
+            throw new IllegalArgumentException("maxDistance must be within [0, 15]");
+        }
+        this.maxDistance = maxDistance;
+        this.bandWidth = Long.SIZE / (maxDistance + 1);
+    }
+
+    @Override
+    public long fingerprint(String content) {
+        return simHash(content);
+    }
+
+    @Override
+    public void add(long fingerprint) {
+        if (counts.merge(fingerprint, 1, Integer::sum) == 1) {
+            for (int band = 0; band <= maxDistance; band++) {
+                bands.computeIfAbsent(bandKey(fingerprint, band), key -> new HashSet<>()).add(fingerprint);
+            }
+        }
+    }
+
+    @Override
+    public void remove(long fingerprint) {
+        Integer count = counts.get(fingerprint);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            counts.put(fingerprint, count - 1);
+            return;
+        }
+        counts.remove(fingerprint);
+        for (int band = 0; band <= maxDistance; band++) {
+            long key = bandKey(fingerprint, band);
+            Set<Long> members = bands.get(key);
+            members.remove(fingerprint);
+            if (members.isEmpty()) {
+                bands.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public int countSimilar(long fingerprint) {
+        int similar = 0;
+        for (int band = 0; band <= maxDistance; band++) {
+            Set<Long> members = bands.get(bandKey(fingerprint, band));
+            if (members == null) {
+                continue;
+            }
+            for (long candidate : members) {
+                if (Long.bitCount(candidate ^ fingerprint) <= maxDistance
+                        && firstSharedBand(candidate, fingerprint) == band) {
+                    similar += counts.get(candidate);
+                }
+            }
+        }
+        return similar;
+    }
+
+    @Override
+    public void clear() {
+        counts.clear();
+        bands.clear();
+    }
+
+    /**
+     * @return the SimHash fingerprint of {@code text}
+     */
+    public static long simHash(String text) {
+        int[] weights = new int[Long.SIZE];
+        long previous = 0;
+        boolean hasPrevious = false;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                i++;
+                continue;
+            }
+            long word = FNV_OFFSET;
+            while (i < length && Character.isLetterOrDigit(c = text.charAt(i))) {
+                if (Character.isDigit(c)) {
+                    word = (word ^ '0') * FNV_PRIME;
+                    while (i < length && Character.isDigit(text.charAt(i))) {
+                        i++;
+                    }
+                } else {
+                    word = (word ^ Character.toLowerCase(c)) * FNV_PRIME;
+                    i++;
+                }
+            }
+            accumulate(weights, mix(word));
+            if (hasPrevious) {
+                accumulate(weights, mix(previous * 31 + word));
+            }
+            previous = word;
+            hasPrevious = true;
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    private int firstSharedBand(long a, long b) {
+        for (int band = 0; band < maxDistance; band++) {
+            if (bandValue(a, band) == bandValue(b, band)) {
+                return band;
+            }
+        }
+        return maxDistance;
+    }
+
+    private long bandValue(long fingerprint, int band) {
+        // The last band also takes the bits left over when 64 does not divide evenly.
+        int shift = band * bandWidth;
+        int width = band == maxDistance ? Long.SIZE - shift : bandWidth;
+        return width == Long.SIZE ? fingerprint : (fingerprint >>> shift) & ((1L << width) - 1);
+    }
+
+    private long bandKey(long fingerprint, int band) {
+        // Keys of different bands may collide; countSimilar re-checks every candidate.
+        return bandValue(fingerprint, band) * 16 + band;
+    }
+
+    private static void accumulate(int[] weights, long hash) {
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            weights[bit] += (hash >>> bit & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    // Finalizer from MurmurHash3, so similar words spread over all 64 bits.
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93e64b09f53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,34 @@
+package org.openmanus.core;
+
+/**
+ * Near-duplicate index over assistant message contents, maintained by a
+ * {@link Memory} as messages enter and leave it. Used by stuck detection to
+ * recognise replies that repeat earlier ones with small edits.
+ *
+ * <p>Each content is reduced to a 64-bit fingerprint once, on insertion; the
+ * memory keeps the fingerprint and hands it back on removal and lookup, so
+ * implementations never see the same text twice. Implementations need not be
+ * thread-safe: the memory calls them under its write lock.</p>
+ */
+public interface SimilarityIndex {
+    /**
+     * @param content non-blank assistant message content
+     * @return fingerprint of {@code content}
+     */
+    long fingerprint(String content);
+
+    void add(long fingerprint);
+
+    /**
+     * Remove one occurrence of a fingerprint previously passed to {@link #add}.
+     */
+    void remove(long fingerprint);
+
+    /**
+     * @return number of indexed occurrences similar to {@code fingerprint},
+     *     including exact matches
+     */
+    int countSimilar(long fingerprint);
+
+    void clear();
+}
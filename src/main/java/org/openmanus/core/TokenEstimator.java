@@ -0,0 +1,46 @@
+package org.openmanus.core;
+
+/**
+ * Estimates how many model tokens a {@link Message} occupies in a prompt.
+ * Estimates only need to be stable and roughly proportional; {@link Memory}
+ * computes each message's estimate once and caches it.
+ */
+@FunctionalInterface
+public interface TokenEstimator {
+    /**
+     * Heuristic assuming roughly four characters per token, the usual rule of
+     * thumb for English text with GPT-style tokenizers.
+     */
+    TokenEstimator DEFAULT = charsPerToken(4);
+
+    /**
+     * @param message the message to estimate
+     * @return estimated token count, never negative
+     */
+    int estimate(Message message);
+
+    /**
+     * Build an estimator that divides the characters of the content, name and
+     * tool call payloads by {@code charsPerToken} and adds a small fixed
+     * per-message overhead for role and framing tokens.
+     *
+     * @param charsPerToken average number of characters per token
+     * @return the estimator
+     */
+    static TokenEstimator charsPerToken(int charsPerToken) {
+        if (charsPerToken <= 0) {
+            throw new IllegalArgumentException("charsPerToken must be positive");
+        }
+        return message -> {
+            long chars = message.getContent().map(String::length).orElse(0)
+                    + message.getName().map(String::length).orElse(0);
+            for (ToolCall call : message.getToolCalls()) {
+                chars += call.getId().length()
+                        + call.getFunction().getName().length()
+                        + call.getFunction().getArguments().length();
+            }
+            long tokens = 4 + (chars + charsPerToken - 1) / charsPerToken;
+            return (int) Math.min(tokens, Integer.MAX_VALUE);
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package org.openmanus.exception;
+
+/**
+ * Signals that an operation was abandoned because its
+ * {@link org.openmanus.core.CancellationToken} was cancelled or its deadline passed.
+ */
+public class CancelledException extends RuntimeException {
+    public CancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package org.openmanus.exception;
+
+/**
+ * Signals that a language model invocation failed.
+ */
+public class LLMException extends RuntimeException {
+    public LLMException(String message) {
+        super(message);
+    }
+
+    public LLMException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
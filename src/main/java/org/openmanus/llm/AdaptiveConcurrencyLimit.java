@@ -0,0 +1,132 @@
+package org.openmanus.llm;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.exception.LLMException;
+
+/**
+ * Concurrency limit adjusted by additive increase, multiplicative decrease
+ * (AIMD). Each call that completes normally raises the limit by
+ * {@code 1 / limit}, which is roughly one slot per round trip at full
+ * utilisation. An overload failure, or a latency above {@code latencyTolerance}
+ * times the smoothed baseline, multiplies the limit by {@code backoffRatio}. At
+ * most one decrease happens per baseline round trip, so a burst of slow
+ * responses from one congestion event does not collapse the limit.
+ */
+final class AdaptiveConcurrencyLimit {
+    private static final double BASELINE_WEIGHT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // Guarded by lock.
+    private double limit;
+    private int inFlight;
+    private double baselineNanos;
+    private long lastDecreaseAt;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            double latencyTolerance) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 0 < min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be within (0, 1)");
+        }
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("latencyTolerance must be greater than 1");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.lastDecreaseAt = System.nanoTime();
+    }
+
+    /**
+     * Block until a slot is free.
+     *
+     * @throws org.openmanus.exception.CancelledException if the token is cancelled while waiting
+     */
+    void acquire(CancellationToken token) {
+        CancellationToken.Registration registration = token.onCancel(this::wakeAll);
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                token.throwIfCancelled();
+                available.await();
+            }
+            token.throwIfCancelled();
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LLMException("Interrupted while waiting for a concurrency slot", e);
+        } finally {
+            lock.unlock();
+            registration.close();
+        }
+    }
+
+    /**
+     * Free a slot and adjust the limit.
+     *
+     * @param latencyNanos duration of the call, or a negative value if it should not be sampled
+     * @param overloaded whether the call failed with an overload signal from the backend
+     */
+    void release(long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            inFlight--;
+            boolean slow = baselineNanos > 0 && latencyNanos > latencyTolerance * baselineNanos;
+            long now = System.nanoTime();
+            if (overloaded || slow) {
+                if (now - lastDecreaseAt >= baselineNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseAt = now;
+                }
+            } else if (latencyNanos >= 0) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            if (!overloaded && latencyNanos >= 0) {
+                baselineNanos = baselineNanos <= 0
+                        ? latencyNanos
+                        : baselineNanos + BASELINE_WEIGHT * (latencyNanos - baselineNanos);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void wakeAll() {
+        lock.lock();
+        try {
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package org.openmanus.llm;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openmanus.concurrent.VirtualThreads;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.exception.LLMException;
+
+/**
+ * {@link LLM} decorator that coalesces concurrent {@link #respond} calls into
+ * {@link LLM#respondBatch} calls on the delegate.
+ *
+ * <p>A collector thread opens a batch with the first waiting request, then keeps
+ * adding requests until either {@code maxBatchSize} is reached or
+ * {@code maxDelay} has passed since the batch opened. Each batch is dispatched
+ * on the dispatch executor, so the next batch is collected while the previous
+ * one is in flight. A larger window or batch size raises throughput at the cost
+ * of added latency for the first caller of each batch. If a batch fails, every
+ * caller in it receives the failure.</p>
+ */
+public final class BatchingLLM implements LLM, AutoCloseable {
+    private final LLM delegate;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Executor dispatchExecutor;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final Thread collector;
+    private volatile boolean closed;
+
+    private BatchingLLM(Builder builder) {
+        this.delegate = Objects.requireNonNull(builder.delegate, "delegate");
+        if (builder.maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        if (builder.maxDelay.isNegative()) {
+            throw new IllegalArgumentException("maxDelay must be non-negative");
+        }
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.dispatchExecutor = Objects.requireNonNull(builder.dispatchExecutor, "dispatchExecutor");
+        this.collector = new Thread(this::collect, "openmanus-llm-batcher");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    public static Builder builder(LLM delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        return respond(messages, systemMessages, temperature, CancellationToken.none());
+    }
+
+    /**
+     * A cancelled caller is taken out of the queue if its request has not been
+     * collected yet; otherwise it stops waiting and the rest of its batch
+     * completes normally.
+     */
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        token.throwIfCancelled();
+        if (closed) {
+            throw new LLMException("BatchingLLM is closed");
+        }
+        Pending pending = new Pending(LLMRequest.of(messages, systemMessages, temperature));
+        queue.add(pending);
+        // close() may have drained the queue between the check above and the add.
+        if (closed && queue.remove(pending)) {
+            throw new LLMException("BatchingLLM is closed");
+        }
+        return CancellableCall.await(pending.result, token, () -> {
+            queue.remove(pending);
+            pending.result.cancel(false);
+        });
+    }
+
+    /**
+     * Explicit batches bypass the collector and go straight to the delegate.
+     */
+    @Override
+    public List<String> respondBatch(List<LLMRequest> requests) {
+        return delegate.respondBatch(requests);
+    }
+
+    /**
+     * @return number of batches dispatched so far
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * @return number of requests dispatched through batches so far
+     */
+    public long getBatchedRequestCount() {
+        return batchedRequests.sum();
+    }
+
+    /**
+     * Stop collecting. Requests still waiting fail with an {@link LLMException};
+     * batches already dispatched complete normally.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        collector.interrupt();
+        failQueued();
+    }
+
+    private void collect() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(List.copyOf(batch));
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(new LLMException("BatchingLLM is closed"));
+            }
+            failQueued();
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        batches.increment();
+        batchedRequests.add(batch.size());
+        try {
+            dispatchExecutor.execute(() -> complete(batch));
+        } catch (RuntimeException e) {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void complete(List<Pending> batch) {
+        try {
+            List<LLMRequest> requests = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                requests.add(pending.request);
+            }
+            List<String> responses = delegate.respondBatch(requests);
+            if (responses.size() != batch.size()) {
+                throw new LLMException("Expected " + batch.size() + " batched responses but got "
+                        + responses.size());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(responses.get(i));
+            }
+        } catch (RuntimeException | Error e) {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failQueued() {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new LLMException("BatchingLLM is closed"));
+        }
+    }
+
+    private static final class Pending {
+        private final LLMRequest request;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Pending(LLMRequest request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * Builder for {@link BatchingLLM}.
+     */
+    public static final class Builder {
+        private final LLM delegate;
+        private int maxBatchSize = 16;
+        private Duration maxDelay = Duration.ofMillis(5);
+        private Executor dispatchExecutor = VirtualThreads.executor();
+
+        private Builder(LLM delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Maximum number of requests per batch.
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Longest time a batch stays open waiting for more requests.
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = Objects.requireNonNull(maxDelay, "maxDelay");
+            return this;
+        }
+
+        /**
+         * Executor on which batches are sent to the delegate.
+         */
+        public Builder dispatchExecutor(Executor dispatchExecutor) {
+            this.dispatchExecutor = dispatchExecutor;
+            return this;
+        }
+
+        public BatchingLLM build() {
+            return new BatchingLLM(this);
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package org.openmanus.llm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+
+/**
+ * {@link LLM} decorator that caches responses for identical requests.
+ *
+ * <p>Requests are keyed by a SHA-256 digest over every message field, the system
+ * messages and the temperature. Responses live in a size and TTL bounded LRU,
+ * optionally backed by an on-disk tier that survives restarts. The disk tier
+ * deletes expired files when it finds them and, once it holds more than
+ * {@code maxDiskEntries} files, prunes the oldest down to three quarters of that
+ * bound. Concurrent identical requests are coalesced so only one reaches the
+ * delegate.</p>
+ *
+ * <p>A caller that cancels its {@link CancellationToken} stops waiting for a
+ * coalesced request without failing it for the other callers. The request is
+ * only cancelled at the delegate once every caller waiting for it has
+ * cancelled; until then the caller that sent it stays attached to it.</p>
+ */
+public final class CachingLLM implements LLM {
+    private static final Logger LOGGER = Logger.getLogger(CachingLLM.class.getName());
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final int ENTRY_HEADER_SIZE = 12;
+
+    private final LLM delegate;
+    private final int maxEntries;
+    private final int maxDiskEntries;
+    private final Duration ttl;
+    private final Path directory;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger diskEntries = new AtomicInteger();
+    private final ReentrantLock pruneLock = new ReentrantLock();
+
+    private CachingLLM(Builder builder) {
+        this.delegate = Objects.requireNonNull(builder.delegate, "delegate");
+        if (builder.maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        if (builder.maxDiskEntries != null && builder.maxDiskEntries <= 0) {
+            throw new IllegalArgumentException("maxDiskEntries must be positive");
+        }
+        if (builder.ttl != null && (builder.ttl.isNegative() || builder.ttl.isZero())) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.maxEntries = builder.maxEntries;
+        this.maxDiskEntries = builder.maxDiskEntries != null ? builder.maxDiskEntries : builder.maxEntries;
+        this.ttl = builder.ttl;
+        this.directory = builder.directory;
+        this.clock = Objects.requireNonNull(builder.clock, "clock");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+                diskEntries.set(entryFiles().size());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot create cache directory " + directory, e);
+            }
+            if (diskEntries.get() > maxDiskEntries) {
+                prune();
+            }
+        }
+    }
+
+    public static Builder builder(LLM delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        return respond(messages, systemMessages, temperature, CancellationToken.none());
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        token.throwIfCancelled();
+        String key = RequestKeys.of(messages, systemMessages, temperature);
+        String cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        while (true) {
+            Flight flight = new Flight();
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return send(key, flight, messages, systemMessages, temperature, token);
+            }
+            if (existing.join()) {
+                CompletableFuture<String> view = existing.result.copy();
+                return CancellableCall.await(view, token, () -> {
+                    if (view.cancel(false)) {
+                        existing.leave();
+                    }
+                });
+            }
+            // Every caller of that request cancelled; it is on its way out.
+            inFlight.remove(key, existing);
+        }
+    }
+
+    private String send(String key, Flight flight, List<Message> messages, Optional<List<Message>> systemMessages,
+            Optional<Double> temperature, CancellationToken token) {
+        // A caller that cannot cancel never leaves, so the flight needs no token of its own.
+        CancellationToken callToken = token.isCancellable() ? flight.token : CancellationToken.none();
+        CancellationToken.Registration registration = token.onCancel(flight::leave);
+        try {
+            // Another caller may have stored the response between our lookup and winning the flight.
+            String cached = lookup(key);
+            if (cached != null) {
+                flight.result.complete(cached);
+                return cached;
+            }
+            String response = delegate.respond(messages, systemMessages, temperature, callToken);
+            store(key, response);
+            flight.result.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            registration.close();
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return number of responses held in the in-memory tier
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Drop every cached response from both tiers.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        if (directory == null) {
+            return;
+        }
+        try {
+            for (Path file : entryFiles()) {
+                deleteEntry(file);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to clear cache directory " + directory, e);
+        }
+    }
+
+    private String lookup(String key) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (isFresh(entry, now)) {
+                    return entry.response;
+                }
+                entries.remove(key);
+            }
+        }
+        if (directory == null) {
+            return null;
+        }
+        Entry entry = readEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!isFresh(entry, now)) {
+            try {
+                deleteEntry(directory.resolve(key + ENTRY_SUFFIX));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to delete expired cache entry for " + key, e);
+            }
+            return null;
+        }
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        return entry.response;
+    }
+
+    private void store(String key, String response) {
+        Entry entry = new Entry(response, clock.millis());
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        if (directory != null) {
+            writeEntry(key, entry);
+        }
+    }
+
+    private boolean isFresh(Entry entry, long now) {
+        return ttl == null || now - entry.createdAtMillis < ttl.toMillis();
+    }
+
+    private Entry readEntry(String key) {
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        try (InputStream in = Files.newInputStream(file);
+                DataInputStream data = new DataInputStream(in)) {
+            long createdAt = data.readLong();
+            int length = data.readInt();
+            // Never trust a length read from disk; a corrupt one would fail the allocation.
+            if (length < 0 || length > Files.size(file) - ENTRY_HEADER_SIZE) {
+                throw new IOException("Invalid response length " + length);
+            }
+            byte[] bytes = new byte[length];
+            data.readFully(bytes);
+            return new Entry(new String(bytes, StandardCharsets.UTF_8), createdAt);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Deleting unreadable cache entry " + file, e);
+            try {
+                deleteEntry(file);
+            } catch (IOException deleteError) {
+                LOGGER.log(Level.FINE, "Failed to delete unreadable cache entry " + file, deleteError);
+            }
+            return null;
+        }
+    }
+
+    private void writeEntry(String key, Entry entry) {
+        Path target = directory.resolve(key + ENTRY_SUFFIX);
+        Path temp = null;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (DataOutputStream data = new DataOutputStream(buffer)) {
+                byte[] bytes = entry.response.getBytes(StandardCharsets.UTF_8);
+                data.writeLong(entry.createdAtMillis);
+                data.writeInt(bytes.length);
+                data.write(bytes);
+            }
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                buffer.writeTo(out);
+            }
+            boolean replaced = Files.exists(target);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+            if (!replaced && diskEntries.incrementAndGet() > maxDiskEntries) {
+                prune();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to persist cache entry " + target, e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Failed to delete temporary cache file " + temp, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete the oldest entry files until three quarters of
+     * {@code maxDiskEntries} remain. Only one thread prunes at a time; others
+     * skip, since the bound is approximate anyway.
+     */
+    private void prune() {
+        if (!pruneLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Path> files = entryFiles();
+            int excess = files.size() - (maxDiskEntries - maxDiskEntries / 4);
+            if (excess <= 0) {
+                diskEntries.set(files.size());
+                return;
+            }
+            List<Aged> aged = new ArrayList<>(files.size());
+            for (Path file : files) {
+                aged.add(new Aged(file, createdAt(file)));
+            }
+            aged.sort(Comparator.comparingLong(candidate -> candidate.createdAtMillis));
+            int deleted = 0;
+            for (int i = 0; i < excess; i++) {
+                if (Files.deleteIfExists(aged.get(i).file)) {
+                    deleted++;
+                }
+            }
+            diskEntries.set(files.size() - deleted);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to prune cache directory " + directory, e);
+        } finally {
+            pruneLock.unlock();
+        }
+    }
+
+    private void deleteEntry(Path file) throws IOException {
+        if (Files.deleteIfExists(file)) {
+            diskEntries.decrementAndGet();
+        }
+    }
+
+    private List<Path> entryFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            List<Path> entryFiles = new ArrayList<>();
+            files.filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX)).forEach(entryFiles::add);
+            return entryFiles;
+        }
+    }
+
+    /**
+     * @return creation time stored in {@code file}, or {@link Long#MIN_VALUE} if
+     *         it cannot be read, so unreadable files are pruned first
+     */
+    private static long createdAt(Path file) {
+        try (InputStream in = Files.newInputStream(file);
+                DataInputStream data = new DataInputStream(in)) {
+            return data.readLong();
+        } catch (IOException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * One delegate request shared by every caller waiting for the same key.
+     */
+    private static final class Flight {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final CancellationToken token = CancellationToken.create();
+        // Guarded by this.
+        private int waiters = 1;
+        private boolean abandoned;
+
+        /**
+         * @return {@code false} if every caller already left
+         */
+        synchronized boolean join() {
+            if (abandoned) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        void leave() {
+            synchronized (this) {
+                if (--waiters > 0) {
+                    return;
+                }
+                abandoned = true;
+            }
+            token.cancel("Every caller cancelled");
+        }
+    }
+
+    private static final class Aged {
+        private final Path file;
+        private final long createdAtMillis;
+
+        Aged(Path file, long createdAtMillis) {
+            this.file = file;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+
+    private static final class Entry {
+        private final String response;
+        private final long createdAtMillis;
+
+        Entry(String response, long createdAtMillis) {
+            this.response = response;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+
+    /**
+     * Builder for {@link CachingLLM}.
+     */
+    public static final class Builder {
+        private final LLM delegate;
+        private int maxEntries = 1_000;
+        private Integer maxDiskEntries;
+        private Duration ttl;
+        private Path directory;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder(LLM delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Maximum number of responses kept in memory; least recently used entries
+         * are evicted first.
+         */
+        public Builder maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Maximum number of responses kept in the on-disk tier; defaults to
+         * {@code maxEntries}.
+         */
+        public Builder maxDiskEntries(int maxDiskEntries) {
+            this.maxDiskEntries = maxDiskEntries;
+            return this;
+        }
+
+        /**
+         * Expire responses this long after they were produced. Entries never
+         * expire when unset.
+         */
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * Persist responses as one file per key in {@code directory}.
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public CachingLLM build() {
+            return new CachingLLM(this);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.openmanus.llm;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.exception.CancelledException;
+import org.openmanus.exception.LLMException;
+
+/**
+ * Waits for an in-flight LLM call, or sleeps on its behalf, while honouring a
+ * {@link CancellationToken}.
+ */
+final class CancellableCall {
+    private CancellableCall() {
+    }
+
+    /**
+     * Block until {@code result} completes, running {@code abort} if the token is
+     * cancelled first. {@code abort} must cancel {@code result}.
+     *
+     * @throws CancelledException if the token was cancelled before a result arrived
+     */
+    static String await(Future<String> result, CancellationToken token, Runnable abort) {
+        CancellationToken.Registration registration = token.onCancel(abort);
+        try {
+            return result.get();
+        } catch (CancellationException e) {
+            throw new CancelledException(token.getReason().orElse("Cancelled"));
+        } catch (InterruptedException e) {
+            abort.run();
+            Thread.currentThread().interrupt();
+            throw new LLMException("Interrupted while waiting for response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new LLMException("Response failed", cause);
+        } finally {
+            registration.close();
+        }
+    }
+
+    /**
+     * Sleep for {@code nanos}, returning early with {@link CancelledException} if
+     * the token is cancelled first.
+     */
+    static void sleep(long nanos, CancellationToken token, String description) {
+        if (nanos <= 0) {
+            return;
+        }
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CancellationToken.Registration registration = token.onCancel(cancelled::countDown);
+        try {
+            if (cancelled.await(nanos, TimeUnit.NANOSECONDS)) {
+                token.throwIfCancelled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LLMException("Interrupted while " + description, e);
+        } finally {
+            registration.close();
+        }
+    }
+}
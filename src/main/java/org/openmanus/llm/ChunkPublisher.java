@@ -0,0 +1,84 @@
+package org.openmanus.llm;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/**
+ * {@link Flow.Publisher} that lazily produces a list of chunks and emits them
+ * according to subscriber demand. Signals are delivered synchronously on the
+ * thread that calls {@link Flow.Subscription#request(long)}.
+ */
+final class ChunkPublisher implements Flow.Publisher<String> {
+    private final Supplier<? extends List<String>> chunks;
+
+    ChunkPublisher(Supplier<? extends List<String>> chunks) {
+        this.chunks = Objects.requireNonNull(chunks, "chunks");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new ChunkSubscription(subscriber, chunks));
+    }
+
+    private static final class ChunkSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super String> subscriber;
+        private final Supplier<? extends List<String>> source;
+        private List<String> chunks;
+        private int index;
+        private long demand;
+        private boolean emitting;
+        private boolean done;
+
+        ChunkSubscription(Flow.Subscriber<? super String> subscriber, Supplier<? extends List<String>> source) {
+            this.subscriber = subscriber;
+            this.source = source;
+        }
+
+        @Override
+        public void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("request must be positive"));
+                return;
+            }
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            if (emitting) {
+                // Re-entrant request from onNext; the outer loop picks up the new demand.
+                return;
+            }
+            emitting = true;
+            try {
+                if (chunks == null) {
+                    try {
+                        chunks = source.get();
+                    } catch (RuntimeException e) {
+                        done = true;
+                        subscriber.onError(e);
+                        return;
+                    }
+                }
+                while (!done && demand > 0 && index < chunks.size()) {
+                    demand--;
+                    subscriber.onNext(chunks.get(index++));
+                }
+                if (!done && index == chunks.size()) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            } finally {
+                emitting = false;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package org.openmanus.llm;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.openmanus.concurrent.VirtualThreads;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.metrics.Histogram;
+
+/**
+ * {@link LLM} decorator that sends a backup ("hedged") request when the first
+ * one is slower than usual, and returns whichever response arrives first.
+ *
+ * <p>The first attempt always goes to the primary backend. If it has not
+ * answered after the hedge delay, one backup attempt is sent to the next
+ * backup backend in round-robin order, or to the primary again when no backups
+ * are configured. When one attempt succeeds, the other is cancelled through its
+ * {@link CancellationToken}. A call fails only after every attempt it launched
+ * has failed.</p>
+ *
+ * <p>The hedge delay adapts to the {@code hedgePercentile} of recently observed
+ * response times. Until {@code minSamples} responses have been seen,
+ * {@code initialDelay} is used. Because a hedge that wins cuts the observed
+ * latency short, the estimate is a lower bound. The hedge budget keeps extra
+ * load bounded: each request earns {@code maxHedgeRate} hedge credits, each
+ * hedge spends one, and unspent credit is capped so a quiet period cannot fund
+ * a burst.</p>
+ */
+public final class HedgingLLM implements LLM {
+    private static final double MAX_HEDGE_CREDIT = 10;
+
+    private final LLM primary;
+    private final List<LLM> backups;
+    private final double hedgePercentile;
+    private final int minSamples;
+    private final int window;
+    private final long minDelayNanos;
+    private final double maxHedgeRate;
+    private final Executor executor;
+    private final Histogram latencies = new Histogram();
+    private final AtomicInteger nextBackup = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private volatile long hedgeDelayNanos;
+    // Guarded by this.
+    private double hedgeCredit;
+
+    private HedgingLLM(Builder builder) {
+        this.primary = Objects.requireNonNull(builder.primary, "primary");
+        this.backups = List.copyOf(builder.backups);
+        if (builder.hedgePercentile <= 0 || builder.hedgePercentile >= 100) {
+            throw new IllegalArgumentException("hedgePercentile must be within (0, 100)");
+        }
+        if (builder.minSamples <= 0) {
+            throw new IllegalArgumentException("minSamples must be positive");
+        }
+        if (builder.window < builder.minSamples) {
+            throw new IllegalArgumentException("window must be at least minSamples");
+        }
+        if (builder.minDelay.isNegative() || builder.initialDelay.isNegative()) {
+            throw new IllegalArgumentException("delays must be non-negative");
+        }
+        if (builder.maxHedgeRate < 0 || builder.maxHedgeRate > 1) {
+            throw new IllegalArgumentException("maxHedgeRate must be within [0, 1]");
+        }
+        this.hedgePercentile = builder.hedgePercentile;
+        this.minSamples = builder.minSamples;
+        this.window = builder.window;
+        this.minDelayNanos = builder.minDelay.toNanos();
+        this.hedgeDelayNanos = Math.max(minDelayNanos, builder.initialDelay.toNanos());
+        this.maxHedgeRate = builder.maxHedgeRate;
+        this.executor = Objects.requireNonNull(builder.executor, "executor");
+    }
+
+    /**
+     * @param primary backend that receives the first attempt of every request
+     */
+    public static Builder builder(LLM primary) {
+        return new Builder(primary);
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        return respond(messages, systemMessages, temperature, CancellationToken.none());
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        token.throwIfCancelled();
+        requests.increment();
+        earnHedgeCredit();
+        Race race = new Race(LLMRequest.of(messages, systemMessages, temperature));
+        race.launch(primary, false);
+        ScheduledFuture<?> hedgeTimer = HedgeTimer.TIMER.schedule(
+                () -> executor.execute(() -> hedge(race)), hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        try {
+            return CancellableCall.await(race.result, token, () -> race.abort("Request cancelled"));
+        } finally {
+            // Drop the timer once the race is decided so fast responses leave nothing queued.
+            hedgeTimer.cancel(false);
+        }
+    }
+
+    /**
+     * @return delay after which a backup request is currently sent
+     */
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(hedgeDelayNanos);
+    }
+
+    /**
+     * @return number of requests received so far
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return number of backup requests sent so far
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return number of requests answered by the backup attempt
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    private void hedge(Race race) {
+        if (race.result.isDone() || !spendHedgeCredit()) {
+            return;
+        }
+        LLM target = backups.isEmpty()
+                ? primary
+                : backups.get(Math.floorMod(nextBackup.getAndIncrement(), backups.size()));
+        if (race.launch(target, true)) {
+            hedges.increment();
+        } else {
+            refundHedgeCredit();
+        }
+    }
+
+    private synchronized void earnHedgeCredit() {
+        hedgeCredit = Math.min(MAX_HEDGE_CREDIT, hedgeCredit + maxHedgeRate);
+    }
+
+    private synchronized boolean spendHedgeCredit() {
+        if (hedgeCredit < 1) {
+            return false;
+        }
+        hedgeCredit -= 1;
+        return true;
+    }
+
+    private synchronized void refundHedgeCredit() {
+        hedgeCredit += 1;
+    }
+
+    private void recordLatency(long nanos) {
+        latencies.record(nanos);
+        long count = latencies.count();
+        if (count % minSamples == 0) {
+            hedgeDelayNanos = Math.max(minDelayNanos, latencies.percentile(hedgePercentile));
+        }
+        if (count >= window) {
+            latencies.reset();
+        }
+    }
+
+    /**
+     * @return number of hedge timers still scheduled across all instances
+     */
+    static int scheduledHedgeTimers() {
+        return HedgeTimer.TIMER.getQueue().size();
+    }
+
+    /**
+     * Attempts racing to answer one request.
+     */
+    private final class Race {
+        private final LLMRequest request;
+        private final long started = System.nanoTime();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        // Guarded by this.
+        private final List<CancellationToken> attempts = new ArrayList<>(2);
+        private int pending;
+        private boolean decided;
+
+        Race(LLMRequest request) {
+            this.request = request;
+        }
+
+        /**
+         * @return {@code false} if the race was already decided
+         */
+        boolean launch(LLM backend, boolean hedged) {
+            CancellationToken attempt = CancellationToken.create();
+            synchronized (this) {
+                if (decided || result.isDone()) {
+                    return false;
+                }
+                attempts.add(attempt);
+                pending++;
+            }
+            try {
+                executor.execute(() -> attempt(backend, attempt, hedged));
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+            return true;
+        }
+
+        private void attempt(LLM backend, CancellationToken attempt, boolean hedged) {
+            try {
+                String response = backend.respond(
+                        request.getMessages(), request.getSystemMessages(), request.getTemperature(), attempt);
+                if (claim()) {
+                    // Recorded before completion so the caller observes the updated delay.
+                    recordLatency(System.nanoTime() - started);
+                    if (hedged) {
+                        hedgeWins.increment();
+                    }
+                    result.complete(response);
+                    abort("Hedged request lost");
+                }
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        }
+
+        private synchronized boolean claim() {
+            if (decided || result.isDone()) {
+                return false;
+            }
+            decided = true;
+            return true;
+        }
+
+        private void fail(Throwable failure) {
+            synchronized (this) {
+                if (--pending > 0) {
+                    return;
+                }
+            }
+            result.completeExceptionally(failure);
+        }
+
+        void abort(String reason) {
+            result.cancel(false);
+            List<CancellationToken> toCancel;
+            synchronized (this) {
+                toCancel = List.copyOf(attempts);
+            }
+            for (CancellationToken attempt : toCancel) {
+                attempt.cancel(reason);
+            }
+        }
+    }
+
+    /**
+     * Shared timer that fires hedges; the hedges themselves run on the executor.
+     */
+    private static final class HedgeTimer {
+        private static final ScheduledThreadPoolExecutor TIMER = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "openmanus-hedge-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+
+    /**
+     * Builder for {@link HedgingLLM}.
+     */
+    public static final class Builder {
+        private final LLM primary;
+        private final List<LLM> backups = new ArrayList<>();
+        private double hedgePercentile = 95;
+        private int minSamples = 20;
+        private int window = 1000;
+        private Duration minDelay = Duration.ofMillis(5);
+        private Duration initialDelay = Duration.ofSeconds(1);
+        private double maxHedgeRate = 0.05;
+        private Executor executor = VirtualThreads.executor();
+
+        private Builder(LLM primary) {
+            this.primary = primary;
+        }
+
+        /**
+         * Adds a backend that receives backup attempts. Without backups, the
+         * backup attempt is sent to the primary again.
+         */
+        public Builder backup(LLM backup) {
+            backups.add(Objects.requireNonNull(backup, "backup"));
+            return this;
+        }
+
+        /**
+         * Percentile of observed response times after which a backup is sent.
+         */
+        public Builder hedgePercentile(double hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+            return this;
+        }
+
+        /**
+         * Number of responses between recomputations of the hedge delay.
+         */
+        public Builder minSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Number of responses after which older observations are discarded.
+         */
+        public Builder window(int window) {
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Lower bound on the hedge delay.
+         */
+        public Builder minDelay(Duration minDelay) {
+            this.minDelay = Objects.requireNonNull(minDelay, "minDelay");
+            return this;
+        }
+
+        /**
+         * Hedge delay used until enough responses have been observed.
+         */
+        public Builder initialDelay(Duration initialDelay) {
+            this.initialDelay = Objects.requireNonNull(initialDelay, "initialDelay");
+            return this;
+        }
+
+        /**
+         * Long-run upper bound on the fraction of requests that are hedged.
+         */
+        public Builder maxHedgeRate(double maxHedgeRate) {
+            this.maxHedgeRate = maxHedgeRate;
+            return this;
+        }
+
+        /**
+         * Executor running the attempts and the hedge timer callbacks.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public HedgingLLM build() {
+            return new HedgingLLM(this);
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package org.openmanus.llm;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import org.openmanus.concurrent.VirtualThreads;
+import org.openmanus.core.CancellationToken;
 import org.openmanus.core.Message;
 
 /**
@@ -17,4 +25,152 @@ public interface LLM {
      * @return generated response text
      */
     String respond(List<Message> messages, Optional<List<Message>> systemMessages, Optional<Double> temperature);
+
+    /**
+     * Generate a response that is abandoned as soon as {@code token} is cancelled
+     * or its deadline passes.
+     *
+     * <p>Implementations that can abort an in-flight request should override this.
+     * The default runs {@link #respond} on the shared {@link VirtualThreads#executor()}
+     * and interrupts it on cancellation, so the caller is released immediately even
+     * if the backend cannot stop its own work.</p>
+     *
+     * @param messages conversation messages in chronological order
+     * @param systemMessages optional system prompt messages prepended to the request
+     * @param temperature optional temperature override
+     * @param token cancellation signal for this call
+     * @return generated response text
+     * @throws org.openmanus.exception.CancelledException if the token is cancelled before a response arrives
+     */
+    default String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        token.throwIfCancelled();
+        if (!token.isCancellable()) {
+            return respond(messages, systemMessages, temperature);
+        }
+        FutureTask<String> task = new FutureTask<>(() -> respond(messages, systemMessages, temperature));
+        VirtualThreads.executor().execute(task);
+        return CancellableCall.await(task, token, () -> task.cancel(true));
+    }
+
+    /**
+     * Stream the response for the provided conversation history as it is produced.
+     *
+     * <p>The returned publisher honours subscriber demand. The default
+     * implementation defers to {@link #respond} and emits the whole completion as a
+     * single chunk once it is requested.</p>
+     *
+     * @param messages conversation messages in chronological order
+     * @param systemMessages optional system prompt messages prepended to the request
+     * @param temperature optional temperature override
+     * @return publisher of response chunks whose concatenation is the full response
+     */
+    default Flow.Publisher<String> stream(
+            List<Message> messages, Optional<List<Message>> systemMessages, Optional<Double> temperature) {
+        return new ChunkPublisher(() -> List.of(respond(messages, systemMessages, temperature)));
+    }
+
+    /**
+     * Stream the response, forwarding each chunk to {@code onChunk} as it arrives,
+     * and block until the full response is available.
+     *
+     * @param messages conversation messages in chronological order
+     * @param systemMessages optional system prompt messages prepended to the request
+     * @param temperature optional temperature override
+     * @param onChunk callback receiving each chunk in order
+     * @return the complete response text
+     */
+    default String respondStreaming(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            Consumer<String> onChunk) {
+        StreamCollector collector = new StreamCollector(onChunk);
+        stream(messages, systemMessages, temperature).subscribe(collector);
+        return collector.await();
+    }
+
+    /**
+     * Stream the response like {@link #respondStreaming(List, Optional, Optional, Consumer)},
+     * cancelling the subscription as soon as {@code token} is cancelled or its
+     * deadline passes. Publishers that emit on the subscribing thread, such as
+     * the default {@link #stream}, stop at the next chunk boundary.
+     *
+     * @param messages conversation messages in chronological order
+     * @param systemMessages optional system prompt messages prepended to the request
+     * @param temperature optional temperature override
+     * @param onChunk callback receiving each chunk in order
+     * @param token cancellation signal for this call
+     * @return the complete response text
+     * @throws org.openmanus.exception.CancelledException if the token is cancelled before the stream completes
+     */
+    default String respondStreaming(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            Consumer<String> onChunk,
+            CancellationToken token) {
+        token.throwIfCancelled();
+        StreamCollector collector = new StreamCollector(onChunk);
+        CancellationToken.Registration registration =
+                token.onCancel(() -> collector.cancel(token.getReason().orElse("Cancelled")));
+        try {
+            stream(messages, systemMessages, temperature).subscribe(collector);
+            return collector.await();
+        } finally {
+            registration.close();
+        }
+    }
+
+    /**
+     * Generate a response without blocking the caller, using the shared
+     * {@link VirtualThreads#executor()}.
+     *
+     * @param messages conversation messages in chronological order
+     * @param systemMessages optional system prompt messages prepended to the request
+     * @param temperature optional temperature override
+     * @return future completed with the generated response text
+     */
+    default CompletableFuture<String> respondAsync(
+            List<Message> messages, Optional<List<Message>> systemMessages, Optional<Double> temperature) {
+        return respondAsync(messages, systemMessages, temperature, VirtualThreads.executor());
+    }
+
+    /**
+     * Generate a response without blocking the caller. Implementations with a
+     * native non-blocking client may override this; the default runs
+     * {@link #respond} on {@code executor}.
+     *
+     * @param messages conversation messages in chronological order
+     * @param systemMessages optional system prompt messages prepended to the request
+     * @param temperature optional temperature override
+     * @param executor executor used for the blocking call
+     * @return future completed with the generated response text
+     */
+    default CompletableFuture<String> respondAsync(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            Executor executor) {
+        return CompletableFuture.supplyAsync(() -> respond(messages, systemMessages, temperature), executor);
+    }
+
+    /**
+     * Generate responses for several independent requests. Backends that support
+     * batched inference should override this to send the requests together; the
+     * default answers them one after another.
+     *
+     * @param requests requests to answer
+     * @return responses in the same order as {@code requests}
+     */
+    default List<String> respondBatch(List<LLMRequest> requests) {
+        List<String> responses = new ArrayList<>(requests.size());
+        for (LLMRequest request : requests) {
+            responses.add(respond(request.getMessages(), request.getSystemMessages(), request.getTemperature()));
+        }
+        return responses;
+    }
 }
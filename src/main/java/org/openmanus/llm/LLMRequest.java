@@ -0,0 +1,39 @@
+package org.openmanus.llm;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.openmanus.core.Message;
+
+/**
+ * Arguments of a single {@link LLM#respond} call, used where requests are
+ * queued or grouped.
+ */
+public final class LLMRequest {
+    private final List<Message> messages;
+    private final Optional<List<Message>> systemMessages;
+    private final Optional<Double> temperature;
+
+    private LLMRequest(List<Message> messages, Optional<List<Message>> systemMessages, Optional<Double> temperature) {
+        this.messages = Objects.requireNonNull(messages, "messages");
+        this.systemMessages = Objects.requireNonNull(systemMessages, "systemMessages");
+        this.temperature = Objects.requireNonNull(temperature, "temperature");
+    }
+
+    public static LLMRequest of(
+            List<Message> messages, Optional<List<Message>> systemMessages, Optional<Double> temperature) {
+        return new LLMRequest(messages, systemMessages, temperature);
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public Optional<List<Message>> getSystemMessages() {
+        return systemMessages;
+    }
+
+    public Optional<Double> getTemperature() {
+        return temperature;
+    }
+}
@@ -0,0 +1,302 @@
+package org.openmanus.llm;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.core.TokenEstimator;
+import org.openmanus.exception.CancelledException;
+import org.openmanus.exception.LLMException;
+
+/**
+ * {@link LLM} decorator that shapes traffic to a backend so throughput stays
+ * near the provider's ceiling when it pushes back.
+ *
+ * <p>Each attempt passes through three stages:</p>
+ * <ol>
+ *   <li>Optional token buckets for requests per second and estimated tokens per
+ *       second. Tokens are estimated from the prompt with a
+ *       {@link TokenEstimator}, plus a fixed allowance for the completion.</li>
+ *   <li>An {@link AdaptiveConcurrencyLimit AIMD concurrency limit}. It grows while
+ *       calls complete at their usual latency. It shrinks on overload failures or
+ *       when latency rises well above the smoothed baseline.</li>
+ *   <li>The delegate call itself. If it fails with a transient error, the call is
+ *       retried up to {@code maxAttempts} times. Each retry first sleeps for a
+ *       "full jitter" exponential backoff: a random duration up to
+ *       {@code min(maxBackoff, baseBackoff * 2^retry)}.</li>
+ * </ol>
+ *
+ * <p>Waiting in any stage honours the caller's {@link CancellationToken}.</p>
+ */
+public final class LimitingLLM implements LLM {
+    /**
+     * Default transient failure classifier. It matches I/O errors, timeouts, and
+     * Spring AI's {@code TransientAiException}, which covers HTTP 429 and 5xx
+     * responses. Spring AI's exception is matched by name so this class does not
+     * depend on Spring AI.
+     */
+    public static final Predicate<Throwable> TRANSIENT_FAILURES = failure -> {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof IOException || t instanceof TimeoutException
+                    || t.getClass().getSimpleName().equals("TransientAiException")) {
+                return true;
+            }
+        }
+        return false;
+    };
+
+    private final LLM delegate;
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final TokenEstimator tokenEstimator;
+    private final int completionTokens;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Predicate<Throwable> retryOn;
+    private final LongAdder retries = new LongAdder();
+
+    private LimitingLLM(Builder builder) {
+        this.delegate = Objects.requireNonNull(builder.delegate, "delegate");
+        this.requestBucket = builder.requestsPerSecond > 0
+                ? new TokenBucket(builder.requestsPerSecond, Math.max(1, builder.requestBurst))
+                : null;
+        this.tokenBucket = builder.tokensPerSecond > 0
+                ? new TokenBucket(builder.tokensPerSecond, Math.max(1, builder.tokenBurst))
+                : null;
+        this.tokenEstimator = Objects.requireNonNull(builder.tokenEstimator, "tokenEstimator");
+        if (builder.completionTokens < 0) {
+            throw new IllegalArgumentException("completionTokens must be non-negative");
+        }
+        this.completionTokens = builder.completionTokens;
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(builder.initialConcurrency,
+                builder.minConcurrency, builder.maxConcurrency, builder.backoffRatio, builder.latencyTolerance);
+        if (builder.maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        if (builder.baseBackoff.isNegative() || builder.maxBackoff.compareTo(builder.baseBackoff) < 0) {
+            throw new IllegalArgumentException("backoff must satisfy 0 <= baseBackoff <= maxBackoff");
+        }
+        this.maxAttempts = builder.maxAttempts;
+        this.baseBackoffNanos = builder.baseBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.retryOn = Objects.requireNonNull(builder.retryOn, "retryOn");
+    }
+
+    public static Builder builder(LLM delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        return respond(messages, systemMessages, temperature, CancellationToken.none());
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        int tokens = tokenBucket != null ? estimateTokens(messages, systemMessages) : 0;
+        for (int attempt = 1; ; attempt++) {
+            token.throwIfCancelled();
+            if (requestBucket != null) {
+                pause(requestBucket.reserve(1), token);
+            }
+            if (tokenBucket != null) {
+                pause(tokenBucket.reserve(tokens), token);
+            }
+            concurrencyLimit.acquire(token);
+            long started = System.nanoTime();
+            try {
+                String response = delegate.respond(messages, systemMessages, temperature, token);
+                concurrencyLimit.release(System.nanoTime() - started, false);
+                return response;
+            } catch (RuntimeException e) {
+                boolean transientFailure = !(e instanceof CancelledException) && retryOn.test(e);
+                concurrencyLimit.release(-1, transientFailure);
+                if (!transientFailure || attempt >= maxAttempts) {
+                    throw e;
+                }
+            } catch (Error e) {
+                concurrencyLimit.release(-1, false);
+                throw e;
+            }
+            retries.increment();
+            pause(backoffNanos(attempt), token);
+        }
+    }
+
+    /**
+     * @return current adaptive concurrency limit
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit.getLimit();
+    }
+
+    /**
+     * @return number of calls currently executing against the delegate
+     */
+    public int getInFlight() {
+        return concurrencyLimit.getInFlight();
+    }
+
+    /**
+     * @return number of retries performed after transient failures
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    private int estimateTokens(List<Message> messages, Optional<List<Message>> systemMessages) {
+        int tokens = completionTokens;
+        for (Message message : messages) {
+            tokens += tokenEstimator.estimate(message);
+        }
+        if (systemMessages.isPresent()) {
+            for (Message message : systemMessages.get()) {
+                tokens += tokenEstimator.estimate(message);
+            }
+        }
+        return tokens;
+    }
+
+    private long backoffNanos(int retry) {
+        long ceiling = baseBackoffNanos << Math.min(retry - 1, 30);
+        if (ceiling < 0 || ceiling > maxBackoffNanos) {
+            ceiling = maxBackoffNanos;
+        }
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void pause(long nanos, CancellationToken token) {
+        CancellableCall.sleep(nanos, token, "throttled");
+    }
+
+    /**
+     * Builder for {@link LimitingLLM}.
+     */
+    public static final class Builder {
+        private final LLM delegate;
+        private double requestsPerSecond;
+        private double requestBurst = 1;
+        private double tokensPerSecond;
+        private double tokenBurst = 1;
+        private TokenEstimator tokenEstimator = TokenEstimator.DEFAULT;
+        private int completionTokens = 256;
+        private int initialConcurrency = 8;
+        private int minConcurrency = 1;
+        private int maxConcurrency = 256;
+        private double backoffRatio = 0.9;
+        private double latencyTolerance = 2.0;
+        private int maxAttempts = 3;
+        private Duration baseBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        private Predicate<Throwable> retryOn = TRANSIENT_FAILURES;
+
+        private Builder(LLM delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Limit requests per second, allowing bursts of up to {@code burst} requests.
+         */
+        public Builder requestsPerSecond(double requestsPerSecond, double burst) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.requestBurst = burst;
+            return this;
+        }
+
+        /**
+         * Limit estimated tokens per second, allowing bursts of up to {@code burst} tokens.
+         */
+        public Builder tokensPerSecond(double tokensPerSecond, double burst) {
+            this.tokensPerSecond = tokensPerSecond;
+            this.tokenBurst = burst;
+            return this;
+        }
+
+        /**
+         * Estimator for the prompt side of the token budget.
+         */
+        public Builder tokenEstimator(TokenEstimator tokenEstimator) {
+            this.tokenEstimator = tokenEstimator;
+            return this;
+        }
+
+        /**
+         * Tokens charged per request for the completion, on top of the prompt estimate.
+         */
+        public Builder completionTokens(int completionTokens) {
+            this.completionTokens = completionTokens;
+            return this;
+        }
+
+        /**
+         * Initial, minimum and maximum concurrency limit.
+         */
+        public Builder concurrency(int initial, int min, int max) {
+            this.initialConcurrency = initial;
+            this.minConcurrency = min;
+            this.maxConcurrency = max;
+            return this;
+        }
+
+        /**
+         * Factor applied to the concurrency limit on overload.
+         */
+        public Builder backoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Ratio of observed to baseline latency treated as an overload signal.
+         */
+        public Builder latencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * Maximum number of attempts per call, including the first.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Base and maximum retry backoff.
+         */
+        public Builder backoff(Duration baseBackoff, Duration maxBackoff) {
+            this.baseBackoff = Objects.requireNonNull(baseBackoff, "baseBackoff");
+            this.maxBackoff = Objects.requireNonNull(maxBackoff, "maxBackoff");
+            return this;
+        }
+
+        /**
+         * Classifier for failures that are retried and count as overload.
+         */
+        public Builder retryOn(Predicate<Throwable> retryOn) {
+            this.retryOn = retryOn;
+            return this;
+        }
+
+        public LimitingLLM build() {
+            return new LimitingLLM(this);
+        }
+    }
+}
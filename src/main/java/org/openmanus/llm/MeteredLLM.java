@@ -0,0 +1,97 @@
+package org.openmanus.llm;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.metrics.AgentMetrics;
+
+/**
+ * {@link LLM} decorator that reports call latency and failures to an
+ * {@link AgentMetrics} sink. Streaming calls are timed from subscription until
+ * the stream terminates.
+ */
+public final class MeteredLLM implements LLM {
+    private final LLM delegate;
+    private final AgentMetrics metrics;
+
+    public MeteredLLM(LLM delegate, AgentMetrics metrics) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        long started = System.nanoTime();
+        boolean success = false;
+        try {
+            String response = delegate.respond(messages, systemMessages, temperature);
+            success = true;
+            return response;
+        } finally {
+            metrics.recordLlmCall(System.nanoTime() - started, success);
+        }
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        long started = System.nanoTime();
+        boolean success = false;
+        try {
+            String response = delegate.respond(messages, systemMessages, temperature, token);
+            success = true;
+            return response;
+        } finally {
+            metrics.recordLlmCall(System.nanoTime() - started, success);
+        }
+    }
+
+    @Override
+    public Flow.Publisher<String> stream(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        Flow.Publisher<String> source = delegate.stream(messages, systemMessages, temperature);
+        return subscriber -> source.subscribe(new MeteringSubscriber(subscriber));
+    }
+
+    private final class MeteringSubscriber implements Flow.Subscriber<String> {
+        private final Flow.Subscriber<? super String> downstream;
+        private final long started = System.nanoTime();
+
+        MeteringSubscriber(Flow.Subscriber<? super String> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(String item) {
+            downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            metrics.recordLlmCall(System.nanoTime() - started, false);
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            metrics.recordLlmCall(System.nanoTime() - started, true);
+            downstream.onComplete();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.openmanus.llm;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openmanus.codec.MessageBinaryCodec;
+import org.openmanus.core.Message;
+
+/**
+ * File format shared by {@link RecordingLLM} and {@link ReplayLLM}.
+ *
+ * <p>Layout, big-endian: an {@code int} magic and {@code int} version, then one
+ * record per call: a kind byte (response or failure), the 32-byte
+ * {@link RequestKeys} digest of the request, the latency in nanoseconds as a
+ * {@code long}, the request's newest message as an {@code int} length and
+ * {@link MessageBinaryCodec} bytes ({@code -1} if the request had none), and the
+ * response text or failure message as an {@code int} length and UTF-8 bytes.
+ * The full prompt is represented only by its digest, since every step resends
+ * the growing history. A torn trailing record is ignored on read.</p>
+ */
+final class RecordingFile {
+    private static final Logger LOGGER = Logger.getLogger(RecordingFile.class.getName());
+    private static final int MAGIC = 0x4f4d5250;
+    private static final int VERSION = 1;
+    private static final int DIGEST_SIZE = 32;
+    static final byte RESPONSE = 0;
+    static final byte FAILURE = 1;
+
+    private RecordingFile() {}
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    static void write(DataOutputStream out, MessageBinaryCodec codec, Entry entry) throws IOException {
+        out.writeByte(entry.kind);
+        out.write(HexFormat.of().parseHex(entry.key));
+        out.writeLong(entry.latencyNanos);
+        if (entry.lastMessage == null) {
+            out.writeInt(-1);
+        } else {
+            ByteBuffer encoded = codec.encode(entry.lastMessage);
+            out.writeInt(encoded.remaining());
+            out.write(encoded.array(), 0, encoded.remaining());
+        }
+        byte[] text = entry.text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(text.length);
+        out.write(text);
+    }
+
+    static List<Entry> read(Path file) throws IOException {
+        MessageBinaryCodec codec = new MessageBinaryCodec();
+        List<Entry> entries = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+                DataInputStream data = new DataInputStream(in)) {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not an LLM recording: " + file);
+            }
+            int version = data.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported recording version " + version + ": " + file);
+            }
+            while (true) {
+                int kind = data.read();
+                if (kind < 0) {
+                    break;
+                }
+                byte[] digest = new byte[DIGEST_SIZE];
+                data.readFully(digest);
+                long latencyNanos = data.readLong();
+                Message lastMessage = null;
+                int messageSize = data.readInt();
+                if (messageSize >= 0) {
+                    byte[] encoded = new byte[messageSize];
+                    data.readFully(encoded);
+                    lastMessage = codec.decode(ByteBuffer.wrap(encoded));
+                }
+                byte[] text = new byte[data.readInt()];
+                data.readFully(text);
+                entries.add(new Entry((byte) kind, HexFormat.of().formatHex(digest), latencyNanos, lastMessage,
+                        new String(text, StandardCharsets.UTF_8)));
+            }
+        } catch (EOFException | IllegalArgumentException | NegativeArraySizeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring torn record at the end of " + file, e);
+        }
+        return entries;
+    }
+
+    /**
+     * One recorded call.
+     */
+    static final class Entry {
+        final byte kind;
+        final String key;
+        final long latencyNanos;
+        final Message lastMessage;
+        final String text;
+
+        Entry(byte kind, String key, long latencyNanos, Message lastMessage, String text) {
+            this.kind = kind;
+            this.key = key;
+            this.latencyNanos = latencyNanos;
+            this.lastMessage = lastMessage;
+            this.text = text;
+        }
+    }
+}
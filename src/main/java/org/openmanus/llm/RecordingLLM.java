@@ -0,0 +1,129 @@
+package org.openmanus.llm;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openmanus.codec.MessageBinaryCodec;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.exception.CancelledException;
+
+/**
+ * {@link LLM} decorator that records every call to a file for later replay with
+ * {@link ReplayLLM}, for example to load-test agents offline against real
+ * traffic.
+ *
+ * <p>Each completed call appends the request digest, the newest request
+ * message, the latency and the response to the file. Failures are recorded with
+ * their message and replayed as failures. Cancelled calls are not recorded.
+ * Records are flushed as they are written, so a crashed process loses at most
+ * the record being written. Recording errors are logged and never fail the
+ * call.</p>
+ */
+public final class RecordingLLM implements LLM, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(RecordingLLM.class.getName());
+
+    private final LLM delegate;
+    private final Path file;
+    private final DataOutputStream out;
+    private final MessageBinaryCodec codec = new MessageBinaryCodec();
+    // A lock rather than synchronized so callers waiting to write do not pin virtual threads.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder recorded = new LongAdder();
+    private boolean closed;
+
+    private RecordingLLM(LLM delegate, Path file) throws IOException {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.file = Objects.requireNonNull(file, "file");
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        RecordingFile.writeHeader(out);
+        out.flush();
+    }
+
+    /**
+     * Record calls to {@code delegate} into {@code file}, replacing any existing
+     * file.
+     */
+    public static RecordingLLM open(LLM delegate, Path file) throws IOException {
+        return new RecordingLLM(delegate, file);
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        return respond(messages, systemMessages, temperature, CancellationToken.none());
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        String key = RequestKeys.of(messages, systemMessages, temperature);
+        Message lastMessage = messages.isEmpty() ? null : messages.get(messages.size() - 1);
+        long started = System.nanoTime();
+        String response;
+        try {
+            response = delegate.respond(messages, systemMessages, temperature, token);
+        } catch (CancelledException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            record(new RecordingFile.Entry(RecordingFile.FAILURE, key, System.nanoTime() - started,
+                    lastMessage, message));
+            throw e;
+        }
+        record(new RecordingFile.Entry(RecordingFile.RESPONSE, key, System.nanoTime() - started,
+                lastMessage, response));
+        return response;
+    }
+
+    /**
+     * @return number of calls written to the recording
+     */
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void record(RecordingFile.Entry entry) {
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            RecordingFile.write(out, codec, entry);
+            out.flush();
+            recorded.increment();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to record LLM call to " + file, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.openmanus.llm;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.exception.LLMException;
+
+/**
+ * {@link LLM} that answers from a file written by {@link RecordingLLM}, so agent
+ * runs can be reproduced without network access.
+ *
+ * <p>Requests are matched by the same content digest used for recording. If a
+ * request was recorded several times, its responses are served in recorded
+ * order and then start over, so many concurrent agents can replay one recorded
+ * conversation. Recorded failures are thrown again as {@link LLMException}s.
+ * With {@code reproduceLatency}, each response is delayed by its recorded
+ * latency times {@code latencyScale}; the delay honours the caller's
+ * {@link CancellationToken}. Unmatched requests go to the {@code fallback} if
+ * one is configured and fail otherwise.</p>
+ */
+public final class ReplayLLM implements LLM {
+    private final Map<String, Recorded> recordings;
+    private final int recordCount;
+    private final boolean reproduceLatency;
+    private final double latencyScale;
+    private final LLM fallback;
+    private final LongAdder misses = new LongAdder();
+
+    private ReplayLLM(Builder builder) throws IOException {
+        if (builder.latencyScale < 0) {
+            throw new IllegalArgumentException("latencyScale must be non-negative");
+        }
+        List<RecordingFile.Entry> entries = RecordingFile.read(builder.file);
+        Map<String, List<RecordingFile.Entry>> byKey = new HashMap<>();
+        for (RecordingFile.Entry entry : entries) {
+            byKey.computeIfAbsent(entry.key, key -> new ArrayList<>()).add(entry);
+        }
+        Map<String, Recorded> recorded = new HashMap<>(byKey.size() * 2);
+        byKey.forEach((key, list) -> recorded.put(key, new Recorded(list.toArray(RecordingFile.Entry[]::new))));
+        this.recordings = recorded;
+        this.recordCount = entries.size();
+        this.reproduceLatency = builder.reproduceLatency;
+        this.latencyScale = builder.latencyScale;
+        this.fallback = builder.fallback;
+    }
+
+    public static Builder builder(Path file) {
+        return new Builder(file);
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        return respond(messages, systemMessages, temperature, CancellationToken.none());
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        token.throwIfCancelled();
+        String key = RequestKeys.of(messages, systemMessages, temperature);
+        Recorded recorded = recordings.get(key);
+        if (recorded == null) {
+            misses.increment();
+            if (fallback != null) {
+                return fallback.respond(messages, systemMessages, temperature, token);
+            }
+            throw new LLMException("No recorded response for request " + key);
+        }
+        RecordingFile.Entry entry = recorded.next();
+        if (reproduceLatency) {
+            CancellableCall.sleep((long) (entry.latencyNanos * latencyScale), token, "replaying latency");
+        }
+        if (entry.kind == RecordingFile.FAILURE) {
+            throw new LLMException(entry.text);
+        }
+        return entry.text;
+    }
+
+    /**
+     * @return number of calls in the recording
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return number of requests that had no recorded response
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Recorded calls for one request digest, served round-robin.
+     */
+    private static final class Recorded {
+        private final RecordingFile.Entry[] entries;
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        Recorded(RecordingFile.Entry[] entries) {
+            this.entries = entries;
+        }
+
+        RecordingFile.Entry next() {
+            return entries.length == 1
+                    ? entries[0]
+                    : entries[Math.floorMod(cursor.getAndIncrement(), entries.length)];
+        }
+    }
+
+    /**
+     * Builder for {@link ReplayLLM}.
+     */
+    public static final class Builder {
+        private final Path file;
+        private boolean reproduceLatency;
+        private double latencyScale = 1.0;
+        private LLM fallback;
+
+        private Builder(Path file) {
+            this.file = Objects.requireNonNull(file, "file");
+        }
+
+        /**
+         * Delay each response by its recorded latency.
+         */
+        public Builder reproduceLatency(boolean reproduceLatency) {
+            this.reproduceLatency = reproduceLatency;
+            return this;
+        }
+
+        /**
+         * Factor applied to recorded latencies, for example 0.1 to replay ten times
+         * faster.
+         */
+        public Builder latencyScale(double latencyScale) {
+            this.latencyScale = latencyScale;
+            return this;
+        }
+
+        /**
+         * LLM answering requests that are not in the recording.
+         */
+        public Builder fallback(LLM fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        public ReplayLLM build() throws IOException {
+            return new ReplayLLM(this);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.openmanus.llm;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import org.openmanus.core.Message;
+import org.openmanus.core.ToolCall;
+
+/**
+ * Derives stable, content-based keys for {@link LLM#respond} requests. Every
+ * field is length-prefixed before hashing so distinct requests cannot collide
+ * through concatenation.
+ */
+final class RequestKeys {
+    private RequestKeys() {}
+
+    /**
+     * @return hex encoded SHA-256 digest over the messages, system messages and temperature
+     */
+    static String of(List<Message> messages, Optional<List<Message>> systemMessages, Optional<Double> temperature) {
+        MessageDigest digest = newDigest();
+        if (systemMessages.isPresent()) {
+            updateInt(digest, systemMessages.get().size());
+            for (Message message : systemMessages.get()) {
+                update(digest, message);
+            }
+        } else {
+            updateInt(digest, -1);
+        }
+        updateInt(digest, messages.size());
+        for (Message message : messages) {
+            update(digest, message);
+        }
+        updateString(digest, temperature.map(String::valueOf).orElse(null));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, Message message) {
+        updateString(digest, message.getRole().toWireValue());
+        updateString(digest, message.getContent().orElse(null));
+        updateString(digest, message.getName().orElse(null));
+        updateString(digest, message.getToolCallId().orElse(null));
+        updateInt(digest, message.getToolCalls().size());
+        for (ToolCall call : message.getToolCalls()) {
+            updateString(digest, call.getId());
+            updateString(digest, call.getType());
+            updateString(digest, call.getFunction().getName());
+            updateString(digest, call.getFunction().getArguments());
+        }
+    }
+
+    private static void updateString(MessageDigest digest, String value) {
+        if (value == null) {
+            updateInt(digest, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateInt(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void updateInt(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    }
+}
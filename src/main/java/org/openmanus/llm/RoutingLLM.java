@@ -0,0 +1,409 @@
+package org.openmanus.llm;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.exception.CancelledException;
+import org.openmanus.exception.LLMException;
+
+/**
+ * {@link LLM} that spreads calls over several equivalent backends, for example
+ * one {@link SpringAiChatClientLLM} per model endpoint.
+ *
+ * <p>Each call picks two random available backends and sends the request to
+ * the one with the lower load score ("power of two choices"). The score is the
+ * backend's EWMA latency multiplied by its outstanding requests plus one.
+ * Backends that have not answered yet are scored with the mean latency of the
+ * others, so their outstanding requests still count against them. A
+ * slow replica therefore receives a shrinking share of the traffic rather than
+ * its round-robin share.</p>
+ *
+ * <p>Every backend has a circuit breaker. After {@code failureThreshold}
+ * consecutive failures the breaker opens and the backend is skipped for
+ * {@code openDuration}. After that the next call is sent to it as a single
+ * probe: success closes the breaker, failure opens it again. A failed call is retried on a
+ * different backend up to {@code maxAttempts} backends in total. Cancelled
+ * calls are never retried and do not count as failures.</p>
+ */
+public final class RoutingLLM implements LLM {
+    /**
+     * Circuit breaker state of a backend.
+     */
+    public enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final List<Backend> backends;
+    private final double ewmaWeight;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int maxAttempts;
+
+    private RoutingLLM(Builder builder) {
+        if (builder.names.isEmpty()) {
+            throw new IllegalArgumentException("at least one backend is required");
+        }
+        if (builder.ewmaWeight <= 0 || builder.ewmaWeight > 1) {
+            throw new IllegalArgumentException("ewmaWeight must be within (0, 1]");
+        }
+        if (builder.failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+        if (builder.openDuration.isNegative()) {
+            throw new IllegalArgumentException("openDuration must be non-negative");
+        }
+        if (builder.maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        List<Backend> created = new ArrayList<>(builder.names.size());
+        for (int i = 0; i < builder.names.size(); i++) {
+            created.add(new Backend(builder.names.get(i), builder.llms.get(i)));
+        }
+        this.backends = List.copyOf(created);
+        this.ewmaWeight = builder.ewmaWeight;
+        this.failureThreshold = builder.failureThreshold;
+        this.openNanos = builder.openDuration.toNanos();
+        this.maxAttempts = builder.maxAttempts;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        return respond(messages, systemMessages, temperature, CancellationToken.none());
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        Set<Backend> tried = new LinkedHashSet<>();
+        RuntimeException lastFailure = null;
+        while (tried.size() < maxAttempts) {
+            token.throwIfCancelled();
+            Backend backend = acquire(tried);
+            if (backend == null) {
+                break;
+            }
+            tried.add(backend);
+            long started = System.nanoTime();
+            try {
+                String response = backend.llm.respond(messages, systemMessages, temperature, token);
+                backend.onSuccess(System.nanoTime() - started);
+                return response;
+            } catch (CancelledException e) {
+                backend.onCancelled();
+                throw e;
+            } catch (RuntimeException e) {
+                backend.onFailure(System.nanoTime() - started);
+                lastFailure = e;
+            } catch (Error e) {
+                backend.onFailure(System.nanoTime() - started);
+                throw e;
+            }
+        }
+        if (lastFailure != null) {
+            throw lastFailure;
+        }
+        throw new LLMException("No healthy backend available");
+    }
+
+    /**
+     * @return point-in-time statistics for every backend, in registration order
+     */
+    public List<BackendStats> getStats() {
+        List<BackendStats> stats = new ArrayList<>(backends.size());
+        for (Backend backend : backends) {
+            stats.add(backend.stats());
+        }
+        return stats;
+    }
+
+    private Backend acquire(Set<Backend> excluded) {
+        List<Backend> candidates = new ArrayList<>(backends.size());
+        long now = System.nanoTime();
+        for (Backend backend : backends) {
+            if (excluded.contains(backend) || !backend.isAvailable(now)) {
+                continue;
+            }
+            // Probes go first: a recovering backend's stale latency would otherwise keep it unpicked.
+            if (backend.awaitsProbe(now) && backend.tryAcquire(now)) {
+                return backend;
+            }
+            candidates.add(backend);
+        }
+        while (!candidates.isEmpty()) {
+            Backend chosen = choose(candidates);
+            if (chosen.tryAcquire(now)) {
+                return chosen;
+            }
+            // Another caller took the half-open probe slot.
+            candidates.remove(chosen);
+        }
+        return null;
+    }
+
+    private Backend choose(List<Backend> candidates) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Backend a = candidates.get(first);
+        Backend b = candidates.get(second);
+        double prior = meanLatency();
+        return a.score(prior) <= b.score(prior) ? a : b;
+    }
+
+    /**
+     * @return mean EWMA latency of the backends that have answered, or 1 if none
+     *     has, so that unmeasured backends are compared by outstanding requests
+     */
+    private double meanLatency() {
+        double sum = 0;
+        int measured = 0;
+        for (Backend backend : backends) {
+            double ewma = backend.ewmaNanos;
+            if (ewma > 0) {
+                sum += ewma;
+                measured++;
+            }
+        }
+        return measured == 0 ? 1 : sum / measured;
+    }
+
+    private final class Backend {
+        private final String name;
+        private final LLM llm;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile double ewmaNanos;
+        // Guarded by this.
+        private CircuitState state = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private long openUntil;
+        private boolean probing;
+
+        Backend(String name, LLM llm) {
+            this.name = name;
+            this.llm = llm;
+        }
+
+        /**
+         * @param prior latency assumed while this backend has not answered yet
+         */
+        double score(double prior) {
+            double latency = ewmaNanos;
+            return (latency > 0 ? latency : prior) * (outstanding.get() + 1);
+        }
+
+        synchronized boolean isAvailable(long now) {
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> now - openUntil >= 0;
+                case HALF_OPEN -> !probing;
+            };
+        }
+
+        synchronized boolean awaitsProbe(long now) {
+            return (state == CircuitState.OPEN && now - openUntil >= 0)
+                    || (state == CircuitState.HALF_OPEN && !probing);
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            if (state == CircuitState.OPEN && now - openUntil >= 0) {
+                state = CircuitState.HALF_OPEN;
+                probing = false;
+            }
+            if (state == CircuitState.OPEN || (state == CircuitState.HALF_OPEN && probing)) {
+                return false;
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                probing = true;
+            }
+            outstanding.incrementAndGet();
+            return true;
+        }
+
+        void onSuccess(long latencyNanos) {
+            outstanding.decrementAndGet();
+            successes.increment();
+            synchronized (this) {
+                recordLatency(latencyNanos);
+                state = CircuitState.CLOSED;
+                consecutiveFailures = 0;
+                probing = false;
+            }
+        }
+
+        void onFailure(long latencyNanos) {
+            outstanding.decrementAndGet();
+            failures.increment();
+            synchronized (this) {
+                // Slow failures such as timeouts should also push traffic away.
+                recordLatency(latencyNanos);
+                consecutiveFailures++;
+                if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                    state = CircuitState.OPEN;
+                    openUntil = System.nanoTime() + openNanos;
+                }
+                probing = false;
+            }
+        }
+
+        synchronized void onCancelled() {
+            outstanding.decrementAndGet();
+            probing = false;
+        }
+
+        private void recordLatency(long latencyNanos) {
+            ewmaNanos = ewmaNanos == 0 ? latencyNanos : ewmaNanos + ewmaWeight * (latencyNanos - ewmaNanos);
+        }
+
+        synchronized BackendStats stats() {
+            return new BackendStats(name, state, Duration.ofNanos((long) ewmaNanos), outstanding.get(),
+                    successes.sum(), failures.sum());
+        }
+    }
+
+    /**
+     * Snapshot of one backend's routing statistics.
+     */
+    public static final class BackendStats {
+        private final String name;
+        private final CircuitState circuitState;
+        private final Duration ewmaLatency;
+        private final int outstanding;
+        private final long successes;
+        private final long failures;
+
+        BackendStats(String name, CircuitState circuitState, Duration ewmaLatency, int outstanding,
+                long successes, long failures) {
+            this.name = name;
+            this.circuitState = circuitState;
+            this.ewmaLatency = ewmaLatency;
+            this.outstanding = outstanding;
+            this.successes = successes;
+            this.failures = failures;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public CircuitState getCircuitState() {
+            return circuitState;
+        }
+
+        public Duration getEwmaLatency() {
+            return ewmaLatency;
+        }
+
+        public int getOutstanding() {
+            return outstanding;
+        }
+
+        public long getSuccesses() {
+            return successes;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{" + circuitState + ", ewma=" + ewmaLatency.toMillis() + "ms, outstanding="
+                    + outstanding + ", ok=" + successes + ", failed=" + failures + "}";
+        }
+    }
+
+    /**
+     * Builder for {@link RoutingLLM}.
+     */
+    public static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<LLM> llms = new ArrayList<>();
+        private double ewmaWeight = 0.2;
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int maxAttempts = 2;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a backend identified by {@code name} in {@link #getStats()}.
+         */
+        public Builder backend(String name, LLM llm) {
+            Objects.requireNonNull(name, "name");
+            Objects.requireNonNull(llm, "llm");
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Duplicate backend name: " + name);
+            }
+            names.add(name);
+            llms.add(llm);
+            return this;
+        }
+
+        /**
+         * Weight of the newest sample in the latency EWMA.
+         */
+        public Builder ewmaWeight(double ewmaWeight) {
+            this.ewmaWeight = ewmaWeight;
+            return this;
+        }
+
+        /**
+         * Consecutive failures that open a backend's circuit breaker.
+         */
+        public Builder failureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * Time an open breaker waits before letting a probe call through.
+         */
+        public Builder openDuration(Duration openDuration) {
+            this.openDuration = Objects.requireNonNull(openDuration, "openDuration");
+            return this;
+        }
+
+        /**
+         * Maximum number of distinct backends tried per call.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public RoutingLLM build() {
+            return new RoutingLLM(this);
+        }
+    }
+}
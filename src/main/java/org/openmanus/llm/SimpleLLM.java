@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.Flow;
 import org.openmanus.core.Message;
 import org.openmanus.core.Role;
 
@@ -38,4 +39,31 @@ public final class SimpleLLM implements LLM {
         String fallback = joiner.toString();
         return fallback.isBlank() ? "(no message history)" : fallback;
     }
+
+    /**
+     * Emits the {@link #respond} output word by word, keeping the separating
+     * whitespace at the start of each chunk, to mimic token streaming.
+     */
+    @Override
+    public Flow.Publisher<String> stream(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        return new ChunkPublisher(() -> chunk(respond(messages, systemMessages, temperature)));
+    }
+
+    private static List<String> chunk(String text) {
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i)) && !Character.isWhitespace(text.charAt(i - 1))) {
+                chunks.add(text.substring(start, i));
+                start = i;
+            }
+        }
+        if (start < text.length()) {
+            chunks.add(text.substring(start));
+        }
+        return chunks;
+    }
 }
@@ -1,11 +1,16 @@
 package org.openmanus.llm;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.function.BiConsumer;
+import org.openmanus.core.CancellationToken;
 import org.openmanus.core.FunctionCall;
 import org.openmanus.core.Message;
 import org.openmanus.core.Role;
@@ -15,6 +20,8 @@ import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.ToolResponseMessage;
 import org.springframework.ai.chat.messages.UserMessage;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.Disposable;
 
 /**
  * {@link LLM} implementation backed by Spring AI's {@link ChatClient} abstraction.
@@ -23,10 +30,26 @@ import org.springframework.ai.chat.messages.UserMessage;
  * message types before delegating to the provided {@link ChatClient}. Callers can
  * supply an optional configurator to customize the request (for example, to apply
  * model-specific options or temperature values).</p>
+ *
+ * <p>{@link #stream} is backed by {@code ChatClient.prompt().stream()}, so chunks
+ * are forwarded as the provider emits them and subscriber demand propagates to the
+ * underlying reactive stream.</p>
+ *
+ * <p>Cancellable calls also go through the streaming endpoint, because a blocking
+ * {@code call()} cannot be interrupted. Cancelling the token disposes the
+ * subscription, which closes the provider connection and stops token generation.</p>
+ *
+ * <p>OpenManus messages are immutable, so each one is converted once and the
+ * Spring AI form is memoized against the message instance. Over a long agent run
+ * only newly appended messages are converted on each call. The memo holds its
+ * keys weakly and drops entries once the history no longer references them.</p>
  */
 public final class SpringAiChatClientLLM implements LLM {
     private final ChatClient chatClient;
     private final BiConsumer<ChatClient.ChatClientRequestSpec, Optional<Double>> requestConfigurator;
+    // Message does not override equals/hashCode, so this behaves as a weak identity map.
+    private final Map<Message, org.springframework.ai.chat.messages.Message> converted =
+            Collections.synchronizedMap(new WeakHashMap<>());
 
     /**
      * Create an adapter with the provided {@link ChatClient} and no additional
@@ -57,6 +80,43 @@ public final class SpringAiChatClientLLM implements LLM {
             List<Message> messages,
             Optional<List<Message>> systemMessages,
             Optional<Double> temperature) {
+        String content = prepare(messages, systemMessages, temperature).call().content();
+        return content != null ? content : "";
+    }
+
+    @Override
+    public String respond(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature,
+            CancellationToken token) {
+        token.throwIfCancelled();
+        if (!token.isCancellable()) {
+            return respond(messages, systemMessages, temperature);
+        }
+        CompletableFuture<String> result = new CompletableFuture<>();
+        StringBuilder content = new StringBuilder();
+        Disposable subscription = prepare(messages, systemMessages, temperature).stream().content()
+                .subscribe(content::append, result::completeExceptionally, () -> result.complete(content.toString()));
+        return CancellableCall.await(result, token, () -> {
+            subscription.dispose();
+            result.cancel(false);
+        });
+    }
+
+    @Override
+    public Flow.Publisher<String> stream(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
+        ChatClient.ChatClientRequestSpec spec = prepare(messages, systemMessages, temperature);
+        return JdkFlowAdapter.publisherToFlowPublisher(spec.stream().content());
+    }
+
+    private ChatClient.ChatClientRequestSpec prepare(
+            List<Message> messages,
+            Optional<List<Message>> systemMessages,
+            Optional<Double> temperature) {
         ChatClient.ChatClientRequestSpec spec = chatClient.prompt();
 
         List<org.springframework.ai.chat.messages.Message> payload = new ArrayList<>();
@@ -68,12 +128,19 @@ public final class SpringAiChatClientLLM implements LLM {
         }
 
         requestConfigurator.accept(spec, temperature);
-
-        String content = spec.call().content();
-        return content != null ? content : "";
+        return spec;
     }
 
     private org.springframework.ai.chat.messages.Message toSpringMessage(Message message) {
+        org.springframework.ai.chat.messages.Message springMessage = converted.get(message);
+        if (springMessage == null) {
+            springMessage = convert(message);
+            converted.put(message, springMessage);
+        }
+        return springMessage;
+    }
+
+    private org.springframework.ai.chat.messages.Message convert(Message message) {
         return switch (message.getRole()) {
             case SYSTEM -> new SystemMessage(message.getContent().orElse(""));
             case USER -> new UserMessage(message.getContent().orElse(""));
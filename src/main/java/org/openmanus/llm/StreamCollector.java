@@ -0,0 +1,99 @@
+package org.openmanus.llm;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import org.openmanus.exception.CancelledException;
+import org.openmanus.exception.LLMException;
+
+/**
+ * Subscriber that requests one chunk at a time, forwards each chunk to a
+ * callback and accumulates the full response text.
+ */
+final class StreamCollector implements Flow.Subscriber<String> {
+    private final Consumer<String> onChunk;
+    private final StringBuilder buffer = new StringBuilder();
+    private final CompletableFuture<String> result = new CompletableFuture<>();
+    private volatile Flow.Subscription subscription;
+
+    StreamCollector(Consumer<String> onChunk) {
+        this.onChunk = Objects.requireNonNull(onChunk, "onChunk");
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (result.isDone()) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(String chunk) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            buffer.append(chunk);
+            onChunk.accept(chunk);
+        } catch (RuntimeException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+            return;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        result.complete(buffer.toString());
+    }
+
+    /**
+     * Cancel the subscription and fail {@link #await()} with a
+     * {@link CancelledException}, unless the stream already terminated.
+     */
+    void cancel(String reason) {
+        if (result.completeExceptionally(new CancelledException(reason))) {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    /**
+     * Block until the stream terminates.
+     *
+     * @return the concatenated chunks
+     */
+    String await() {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            throw new LLMException("Interrupted while streaming response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new LLMException("Streaming response failed", cause);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.openmanus.llm;
+
+/**
+ * Token bucket that hands out reservations instead of blocking. A caller
+ * reserves permits and sleeps for the returned time; reservations may drive
+ * the bucket into debt, so waiting callers are served in arrival order and a
+ * burst is smoothed out at the refill rate.
+ */
+final class TokenBucket {
+    private final double capacity;
+    private final double permitsPerNano;
+    // Guarded by this.
+    private double available;
+    private long refilledAt;
+
+    TokenBucket(double permitsPerSecond, double capacity) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.available = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Reserve {@code permits}, which are capped at the bucket capacity so an
+     * oversized request cannot wait forever.
+     *
+     * @return nanoseconds the caller must wait before using the permits
+     */
+    synchronized long reserve(double permits) {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        available -= Math.min(permits, capacity);
+        return available >= 0 ? 0 : (long) Math.ceil(-available / permitsPerNano);
+    }
+}
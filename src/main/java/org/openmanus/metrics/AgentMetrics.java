@@ -0,0 +1,47 @@
+package org.openmanus.metrics;
+
+import org.openmanus.core.AgentState;
+
+/**
+ * Service provider interface for agent and LLM instrumentation.
+ *
+ * <p>Every method has an empty default so implementations only override what
+ * they record, and {@link #NOOP} costs nothing beyond the virtual call.
+ * Implementations must be thread-safe; a single instance is typically shared by
+ * many agents.</p>
+ */
+public interface AgentMetrics {
+    /**
+     * Metrics sink that discards everything.
+     */
+    AgentMetrics NOOP = new AgentMetrics() {};
+
+    /**
+     * @param nanos wall-clock duration of one {@code step()} call
+     */
+    default void recordStep(long nanos) {}
+
+    /**
+     * @param nanos wall-clock duration of one LLM call
+     * @param success whether the call returned a response
+     */
+    default void recordLlmCall(long nanos, boolean success) {}
+
+    /**
+     * @param size number of messages held after a step
+     * @param evictions total messages evicted by the memory so far
+     */
+    default void recordMemory(int size, long evictions) {}
+
+    /**
+     * Called each time an agent detects it is stuck.
+     */
+    default void recordStuck() {}
+
+    /**
+     * Called once per run with the state the run ended in: {@code FINISHED},
+     * {@code ERROR}, {@code CANCELLED} when its cancellation token fired or its
+     * deadline passed, or {@code IDLE} when the step budget ran out.
+     */
+    default void recordRun(AgentState terminalState) {}
+}
@@ -0,0 +1,119 @@
+package org.openmanus.metrics;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.openmanus.core.AgentState;
+
+/**
+ * {@link AgentMetrics} implementation that aggregates into lock-free
+ * {@link Histogram}s and counters and exposes them as a flat snapshot suitable
+ * for scraping.
+ */
+public final class RecordingMetrics implements AgentMetrics {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final EnumSet<AgentState> RUN_OUTCOMES =
+            EnumSet.of(AgentState.IDLE, AgentState.FINISHED, AgentState.ERROR, AgentState.CANCELLED);
+
+    private final Histogram stepLatency = new Histogram();
+    private final Histogram llmLatency = new Histogram();
+    private final LongAdder llmErrors = new LongAdder();
+    private final LongAdder stuckDetections = new LongAdder();
+    private final Map<AgentState, LongAdder> runs = new EnumMap<>(AgentState.class);
+    private volatile int memorySize;
+    private volatile long memoryEvictions;
+
+    public RecordingMetrics() {
+        for (AgentState state : RUN_OUTCOMES) {
+            runs.put(state, new LongAdder());
+        }
+    }
+
+    @Override
+    public void recordStep(long nanos) {
+        stepLatency.record(nanos);
+    }
+
+    @Override
+    public void recordLlmCall(long nanos, boolean success) {
+        llmLatency.record(nanos);
+        if (!success) {
+            llmErrors.increment();
+        }
+    }
+
+    @Override
+    public void recordMemory(int size, long evictions) {
+        memorySize = size;
+        memoryEvictions = evictions;
+    }
+
+    @Override
+    public void recordStuck() {
+        stuckDetections.increment();
+    }
+
+    @Override
+    public void recordRun(AgentState terminalState) {
+        LongAdder count = runs.get(Objects.requireNonNull(terminalState, "terminalState"));
+        if (count == null) {
+            throw new IllegalArgumentException(terminalState + " is not a run outcome");
+        }
+        count.increment();
+    }
+
+    public Histogram getStepLatency() {
+        return stepLatency;
+    }
+
+    public Histogram getLlmLatency() {
+        return llmLatency;
+    }
+
+    public long getLlmErrors() {
+        return llmErrors.sum();
+    }
+
+    public long getStuckDetections() {
+        return stuckDetections.sum();
+    }
+
+    /**
+     * @return number of runs that ended in {@code terminalState}; zero for
+     *         states that are not run outcomes
+     */
+    public long getRuns(AgentState terminalState) {
+        LongAdder count = runs.get(terminalState);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return metric name to value, sorted by name; latencies are in nanoseconds
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> snapshot = new TreeMap<>();
+        addHistogram(snapshot, "agent.step.latency", stepLatency);
+        addHistogram(snapshot, "llm.call.latency", llmLatency);
+        snapshot.put("llm.call.errors", llmErrors.sum());
+        snapshot.put("agent.stuck.detections", stuckDetections.sum());
+        snapshot.put("memory.size", memorySize);
+        snapshot.put("memory.evictions", memoryEvictions);
+        runs.forEach((state, count) -> snapshot.put("agent.runs." + state.name().toLowerCase(), count.sum()));
+        return snapshot;
+    }
+
+    private static void addHistogram(Map<String, Number> snapshot, String name, Histogram histogram) {
+        snapshot.put(name + ".count", histogram.count());
+        snapshot.put(name + ".mean", histogram.mean());
+        snapshot.put(name + ".max", histogram.max());
+        for (double percentile : PERCENTILES) {
+            String label = percentile == Math.rint(percentile)
+                    ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile).replace(".", "");
+            snapshot.put(name + ".p" + label, histogram.percentile(percentile));
+        }
+    }
+}
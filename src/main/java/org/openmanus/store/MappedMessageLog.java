@@ -0,0 +1,452 @@
+package org.openmanus.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.openmanus.codec.MessageBinaryCodec;
+import org.openmanus.core.Message;
+import org.openmanus.core.MessageStore;
+
+/**
+ * Append-only, memory-mapped {@link MessageStore}.
+ *
+ * <p>Messages are written as length-prefixed, CRC-checked
+ * {@link MessageBinaryCodec} records into
+ * fixed-size segment files ({@code segment-00000001.log}, ...) that are mapped
+ * with {@link FileChannel#map}. A full segment rolls over to the next one.
+ * {@link MappedByteBuffer#force()} is issued once every {@code syncEvery}
+ * appends, and on {@link #flush()} and {@link #close()}.</p>
+ *
+ * <p>When evicted records outnumber the live ones, the live history is rewritten
+ * into a new <em>base</em> segment and older segments are deleted. The new
+ * segment is marked pending until all of its records are forced to storage, and
+ * only then marked as a base. Pending segments left by a crash are deleted on
+ * open, so the old history stays intact. Loading starts at the newest base
+ * segment, so a crash between writing the base and deleting its predecessors
+ * never duplicates messages.</p>
+ *
+ * <p>Appends encode straight into the mapped segment, and restoring is a
+ * sequential scan that decodes strings through one reusable scratch array. Torn
+ * or corrupt trailing records are ignored.</p>
+ */
+public final class MappedMessageLog implements MessageStore, Closeable {
+    private static final int MAGIC = 0x4f4d4c47;
+    private static final int VERSION = 1;
+    private static final int FLAG_BASE = 1;
+    private static final int FLAG_PENDING = 2;
+    private static final int FLAGS_OFFSET = 8;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int syncEvery;
+    private final int compactionMinDead;
+    private final CRC32 crc = new CRC32();
+    private final MessageBinaryCodec codec = new MessageBinaryCodec();
+
+    private long segmentId;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int unsynced;
+    private long records;
+
+    private MappedMessageLog(Builder builder) throws IOException {
+        this.directory = Objects.requireNonNull(builder.directory, "directory");
+        if (builder.segmentSize <= HEADER_SIZE + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small");
+        }
+        if (builder.syncEvery <= 0) {
+            throw new IllegalArgumentException("syncEvery must be positive");
+        }
+        if (builder.compactionMinDead < 0) {
+            throw new IllegalArgumentException("compactionMinDead must be non-negative");
+        }
+        this.segmentSize = builder.segmentSize;
+        this.syncEvery = builder.syncEvery;
+        this.compactionMinDead = builder.compactionMinDead;
+        Files.createDirectories(directory);
+        deletePendingSegments();
+    }
+
+    public static Builder builder(Path directory) {
+        return new Builder(directory);
+    }
+
+    /**
+     * Open a log in {@code directory} with default settings.
+     */
+    public static MappedMessageLog open(Path directory) throws IOException {
+        return builder(directory).build();
+    }
+
+    @Override
+    public synchronized void load(Consumer<Message> sink) {
+        Objects.requireNonNull(sink, "sink");
+        records = 0;
+        try {
+            List<Path> segments = liveSegments();
+            for (Path segment : segments) {
+                try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                    if (readHeader(buffer) < 0) {
+                        continue;
+                    }
+                    int length;
+                    while ((length = nextRecord(buffer)) >= 0) {
+                        int end = buffer.position() + length;
+                        Message message = codec.decode(buffer);
+                        buffer.position(end);
+                        records++;
+                        sink.accept(message);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load message log from " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void append(Message message) {
+        Objects.requireNonNull(message, "message");
+        int length = codec.encodedSize(message);
+        int needed = RECORD_HEADER_SIZE + length;
+        try {
+            if (mapped == null) {
+                openTail();
+            }
+            // Keep 4 zero bytes after the record so scans find the end of data.
+            if (mapped.remaining() < needed + 4) {
+                roll(needed + 4, 0);
+            }
+            int start = mapped.position();
+            mapped.putInt(length);
+            mapped.putInt(0);
+            codec.encode(message, mapped);
+            crc.reset();
+            crc.update(mapped.slice(start + RECORD_HEADER_SIZE, length));
+            mapped.putInt(start + 4, (int) crc.getValue());
+            records++;
+            if (++unsynced >= syncEvery) {
+                force();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to message log in " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        try {
+            closeSegment();
+            for (Path segment : segments()) {
+                Files.deleteIfExists(segment);
+            }
+            segmentId = 0;
+            records = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clear message log in " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void retain(List<Message> live) {
+        if (records - live.size() >= Math.max(compactionMinDead, live.size())) {
+            compact(live);
+        }
+    }
+
+    @Override
+    public void rewrite(List<Message> live) {
+        compact(live);
+    }
+
+    /**
+     * Rewrite the log so it holds exactly {@code live}.
+     */
+    public synchronized void compact(List<Message> live) {
+        try {
+            if (mapped == null) {
+                openTail();
+            }
+            long previous = segmentId;
+            // Size the segment for the whole history so compaction never rolls.
+            long space = 4;
+            for (Message message : live) {
+                space += RECORD_HEADER_SIZE + codec.encodedSize(message);
+            }
+            if (space > Integer.MAX_VALUE - HEADER_SIZE) {
+                throw new IOException("Live history too large for one segment: " + space + " bytes");
+            }
+            long previousRecords = records;
+            roll((int) space, FLAG_PENDING);
+            try {
+                records = 0;
+                for (Message message : live) {
+                    append(message);
+                }
+                force();
+                mapped.putInt(FLAGS_OFFSET, FLAG_BASE);
+                force();
+            } catch (RuntimeException e) {
+                abandonPending(previous, previousRecords, e);
+                throw e;
+            }
+            for (Path segment : segments()) {
+                if (segmentId(segment) <= previous) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact message log in " + directory, e);
+        }
+    }
+
+    /**
+     * @return number of records in the live part of the log
+     */
+    public synchronized long recordCount() {
+        return records;
+    }
+
+    /**
+     * Force buffered appends to storage.
+     */
+    public synchronized void flush() {
+        if (mapped != null) {
+            force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeSegment();
+    }
+
+    private void force() {
+        mapped.force();
+        unsynced = 0;
+    }
+
+    private void openTail() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            roll(0, 0);
+            return;
+        }
+        Path tail = segments.get(segments.size() - 1);
+        segmentId = segmentId(tail);
+        channel = FileChannel.open(tail, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (readHeader(mapped) < 0) {
+            throw new IOException("Corrupt segment header in " + tail);
+        }
+        int length;
+        while ((length = nextRecord(mapped)) >= 0) {
+            mapped.position(mapped.position() + length);
+        }
+    }
+
+    private void roll(int minimumRecordSpace, int flags) throws IOException {
+        closeSegment();
+        segmentId++;
+        Path path = segmentPath(segmentId);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(segmentSize, HEADER_SIZE + minimumRecordSpace));
+        mapped.putInt(MAGIC);
+        mapped.putInt(VERSION);
+        mapped.putInt(flags);
+    }
+
+    /**
+     * Drop the pending segment of a failed compaction and reopen the previous
+     * tail, so later appends continue the old history.
+     */
+    private void abandonPending(long previous, long previousRecords, Exception failure) {
+        Path pending = segmentPath(segmentId);
+        try {
+            closeSegment();
+        } catch (IOException | RuntimeException e) {
+            failure.addSuppressed(e);
+            mapped = null;
+            try {
+                channel.close();
+            } catch (IOException closeError) {
+                failure.addSuppressed(closeError);
+            }
+            channel = null;
+        }
+        try {
+            Files.deleteIfExists(pending);
+            segmentId = previous;
+            records = previousRecords;
+            openTail();
+        } catch (IOException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (mapped != null) {
+            force();
+            mapped = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Delete segments of a compaction that did not complete.
+     */
+    private void deletePendingSegments() throws IOException {
+        for (Path segment : segments()) {
+            if (flags(segment) == FLAG_PENDING) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * @return the segments from the newest base segment onwards
+     */
+    private List<Path> liveSegments() throws IOException {
+        List<Path> segments = segments();
+        int first = 0;
+        for (int i = segments.size() - 1; i > 0; i--) {
+            if (flags(segments.get(i)) == FLAG_BASE) {
+                first = i;
+                break;
+            }
+        }
+        return segments.subList(first, segments.size());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(MappedMessageLog::isSegment).sorted().forEach(segments::add);
+            return segments;
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%08d%s", PREFIX, id, SUFFIX));
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static int flags(Path segment) throws IOException {
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            in.read(header, 0);
+            header.flip();
+            return readHeader(header);
+        }
+    }
+
+    /**
+     * @return the header flags, or -1 if the header is missing or invalid
+     */
+    private static int readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return -1;
+        }
+        return buffer.getInt();
+    }
+
+    /**
+     * Validate the record at the buffer position. On success the position moves
+     * to the start of its payload; at the end of data or on a torn record it is
+     * left unchanged.
+     *
+     * @return the payload length, or -1 if there is no valid record
+     */
+    private int nextRecord(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return -1;
+        }
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+            buffer.position(start);
+            return -1;
+        }
+        crc.reset();
+        crc.update(buffer.slice(buffer.position(), length));
+        if ((int) crc.getValue() != checksum) {
+            buffer.position(start);
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Builder for {@link MappedMessageLog}.
+     */
+    public static final class Builder {
+        private final Path directory;
+        private int segmentSize = 64 * 1024 * 1024;
+        private int syncEvery = 64;
+        private int compactionMinDead = 1_024;
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Size of each mapped segment file; larger records get a segment of their own.
+         */
+        public Builder segmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Number of appends between forced syncs to storage.
+         */
+        public Builder syncEvery(int syncEvery) {
+            this.syncEvery = syncEvery;
+            return this;
+        }
+
+        /**
+         * Minimum number of evicted records before compaction is considered.
+         */
+        public Builder compactionMinDead(int compactionMinDead) {
+            this.compactionMinDead = compactionMinDead;
+            return this;
+        }
+
+        public MappedMessageLog build() throws IOException {
+            return new MappedMessageLog(this);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.openmanus.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.agent.AgentRuntime.Priority;
+import org.openmanus.core.AgentState;
+import org.openmanus.core.CancellationToken;
+
+class AgentRuntimeTest {
+
+    @Test
+    @DisplayName("Runs driven by the runtime produce the same results as run()")
+    void matchesBlockingRun() throws Exception {
+        try (AgentRuntime runtime = AgentRuntime.builder().workers(4).build()) {
+            List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(runtime.submit(new EchoAgent("echo"), "hello " + i));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(new EchoAgent("echo").run("hello " + i), futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(0, runtime.getActiveRuns());
+            assertEquals(20, runtime.getExecutedSteps());
+            assertEquals(20, runtime.getQueueDelay(Priority.STANDARD).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Interactive steps are scheduled ahead of queued batch steps")
+    void prioritisesInteractiveSteps() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        try (AgentRuntime runtime = AgentRuntime.builder().workers(1).build()) {
+            ScriptedAgent blocking = new ScriptedAgent("blocker", order, 1, release);
+            CompletableFuture<List<String>> blocker = runtime.submit(blocking, null, Priority.BATCH, "t");
+            assertTrue(blocking.entered.await(5, TimeUnit.SECONDS));
+            List<CompletableFuture<List<String>>> runs = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                runs.add(runtime.submit(new ScriptedAgent("batch" + i, order, 2, null), null, Priority.BATCH, "t"));
+            }
+            runs.add(runtime.submit(new ScriptedAgent("interactive", order, 2, null), null, Priority.INTERACTIVE, "t"));
+            release.countDown();
+
+            blocker.get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<List<String>> run : runs) {
+                assertEquals(2, run.get(5, TimeUnit.SECONDS).size());
+            }
+        }
+        assertEquals(List.of("blocker", "interactive", "interactive", "batch0", "batch1", "batch2",
+                "batch0", "batch1", "batch2"), order);
+    }
+
+    @Test
+    @DisplayName("Submissions beyond the active run limit are rejected")
+    void rejectsWhenAtCapacity() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        try (AgentRuntime runtime = AgentRuntime.builder().workers(1).maxActiveRuns(1).build()) {
+            CompletableFuture<List<String>> first =
+                    runtime.submit(new ScriptedAgent("first", order, 1, release), null);
+            EchoAgent second = new EchoAgent("echo");
+            assertThrows(RejectedExecutionException.class, () -> runtime.submit(second, "hi"));
+            assertEquals(AgentState.IDLE, second.getState());
+            assertTrue(second.getMemory().asList().isEmpty());
+            assertEquals(1, runtime.getRejectedCount());
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            assertEquals(1, runtime.submit(second, "hi").get(5, TimeUnit.SECONDS).size());
+        }
+    }
+
+    @Test
+    @DisplayName("A tenant never executes more steps at once than its quota")
+    void enforcesTenantQuota() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try (AgentRuntime runtime = AgentRuntime.builder().workers(4).tenantStepQuota(2).build()) {
+            List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(runtime.submit(new SleepingAgent(running, maxRunning), null, Priority.STANDARD, "acme"));
+            }
+            for (CompletableFuture<List<String>> future : futures) {
+                assertEquals(3, future.get(5, TimeUnit.SECONDS).size());
+            }
+            assertEquals(0, runtime.getQueueDepth());
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("Cancelling a queued run's token completes it as terminated")
+    void cancelsQueuedRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        try (AgentRuntime runtime = AgentRuntime.builder().workers(1).build()) {
+            ScriptedAgent blocking = new ScriptedAgent("blocker", order, 1, release);
+            runtime.submit(blocking, null);
+            assertTrue(blocking.entered.await(5, TimeUnit.SECONDS));
+            CancellationToken token = CancellationToken.create();
+            ScriptedAgent queued = new ScriptedAgent("queued", order, 1, null);
+            CompletableFuture<List<String>> future =
+                    runtime.submit(queued, null, Priority.STANDARD, AgentRuntime.DEFAULT_TENANT, token);
+
+            token.cancel("client went away");
+            release.countDown();
+
+            assertEquals(List.of("Terminated: client went away"), future.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("blocker"), order);
+            assertEquals(AgentState.IDLE, queued.getState());
+        }
+    }
+
+    private static final class ScriptedAgent extends BaseAgent {
+        private final List<String> order;
+        private final int steps;
+        private final CountDownLatch gate;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private int taken;
+
+        ScriptedAgent(String name, List<String> order, int steps, CountDownLatch gate) {
+            super(name, null, null, null);
+            this.order = order;
+            this.steps = steps;
+            this.gate = gate;
+        }
+
+        @Override
+        protected String step() throws Exception {
+            entered.countDown();
+            if (gate != null) {
+                gate.await();
+            }
+            order.add(getName());
+            if (++taken == steps) {
+                finish();
+            }
+            return getName();
+        }
+    }
+
+    private static final class SleepingAgent extends BaseAgent {
+        private final AtomicInteger running;
+        private final AtomicInteger maxRunning;
+
+        SleepingAgent(AtomicInteger running, AtomicInteger maxRunning) {
+            super("sleeper", null, null, null);
+            this.running = running;
+            this.maxRunning = maxRunning;
+            setMaxSteps(2);
+        }
+
+        @Override
+        protected String step() throws Exception {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } finally {
+                running.decrementAndGet();
+            }
+            return "slept";
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.openmanus.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+import org.openmanus.core.Role;
+import org.openmanus.llm.LLM;
+
+class ConversationSummarizerTest {
+    private static final LLM COUNTING_SUMMARIZER =
+            (messages, systemMessages, temperature) -> messages.size() + " messages";
+
+    @Test
+    @DisplayName("Older messages are replaced by a summary at the next step boundary")
+    void swapsInSummary() {
+        Memory memory = new Memory(10);
+        for (int i = 0; i < 6; i++) {
+            memory.addMessage(i % 2 == 0 ? Message.user("u" + i) : Message.assistant("a" + i));
+        }
+        List<Message> before = memory.asList();
+        ConversationSummarizer summarizer = new ConversationSummarizer(COUNTING_SUMMARIZER, 6, 2, Runnable::run);
+
+        assertFalse(summarizer.maybeCompact(memory));
+        assertTrue(summarizer.isPending());
+        assertEquals(6, memory.size());
+
+        assertTrue(summarizer.maybeCompact(memory));
+        List<Message> history = memory.asList();
+        assertEquals(3, history.size());
+        assertEquals(Role.SYSTEM, history.get(0).getRole());
+        assertTrue(history.get(0).getContent().orElseThrow().endsWith("4 messages"));
+        assertSame(before.get(4), history.get(1));
+        assertSame(before.get(5), history.get(2));
+        assertEquals(6, before.size());
+        assertEquals(1, memory.countAssistantMessagesWithContent("a5"));
+        assertEquals(0, memory.countAssistantMessagesWithContent("a1"));
+    }
+
+    @Test
+    @DisplayName("A summary replaces the part of its prefix that survived eviction")
+    void appliesSummaryToSurvivingPrefix() {
+        Memory memory = new Memory(4);
+        for (int i = 0; i < 4; i++) {
+            memory.addMessage(Message.user("u" + i));
+        }
+        ConversationSummarizer summarizer = new ConversationSummarizer(COUNTING_SUMMARIZER, 4, 1, Runnable::run);
+        summarizer.maybeCompact(memory);
+
+        memory.addMessage(Message.user("u4"));
+
+        assertTrue(summarizer.maybeCompact(memory));
+        List<Message> history = memory.asList();
+        assertEquals(3, history.size());
+        assertTrue(history.get(0).getContent().orElseThrow().endsWith("3 messages"));
+        assertEquals("u3", history.get(1).getContent().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("A summary of fully evicted messages is discarded without starting another that step")
+    void discardsStaleSummary() {
+        Memory memory = new Memory(4);
+        for (int i = 0; i < 4; i++) {
+            memory.addMessage(Message.user("u" + i));
+        }
+        ConversationSummarizer summarizer = new ConversationSummarizer(COUNTING_SUMMARIZER, 4, 1, Runnable::run);
+        summarizer.maybeCompact(memory);
+
+        for (int i = 4; i < 8; i++) {
+            memory.addMessage(Message.user("u" + i));
+        }
+
+        assertFalse(summarizer.maybeCompact(memory));
+        assertFalse(summarizer.isPending());
+        assertEquals("u4", memory.asList().get(0).getContent().orElseThrow());
+
+        assertFalse(summarizer.maybeCompact(memory));
+        assertTrue(summarizer.isPending());
+    }
+
+    @Test
+    @DisplayName("An agent rejects a summarizer whose threshold its memory can never reach")
+    void rejectsUnreachableThreshold() {
+        EchoAgent agent = new EchoAgent("small", null, null, new Memory(4));
+        assertThrows(IllegalArgumentException.class,
+                () -> agent.setSummarizer(new ConversationSummarizer(COUNTING_SUMMARIZER, 4, 1, Runnable::run)));
+        agent.setSummarizer(new ConversationSummarizer(COUNTING_SUMMARIZER, 3, 1, Runnable::run));
+    }
+
+    @Test
+    @DisplayName("The agent loop is not blocked while a summary is in flight")
+    void doesNotBlockWhilePending() {
+        CompletableFuture<Void> never = new CompletableFuture<>();
+        Memory memory = new Memory();
+        for (int i = 0; i < 5; i++) {
+            memory.addMessage(Message.user("u" + i));
+        }
+        ConversationSummarizer summarizer = new ConversationSummarizer(
+                COUNTING_SUMMARIZER, 4, 1, task -> never.thenRun(task));
+        EchoAgent agent = new EchoAgent("summarized", null, null, memory);
+        agent.setSummarizer(summarizer);
+
+        assertEquals(List.of("Step 1: next"), agent.run("next"));
+        assertTrue(summarizer.isPending());
+    }
+}
@@ -2,14 +2,27 @@ package org.openmanus.agent;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.openmanus.core.AgentState;
+import org.openmanus.core.CancellationToken;
 import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
 import org.openmanus.core.Role;
+import org.openmanus.core.SimHashIndex;
 import org.openmanus.exception.AgentStateException;
 import org.openmanus.llm.LLM;
+import org.openmanus.metrics.RecordingMetrics;
 
 class EchoAgentTest {
     @Test
@@ -82,4 +95,195 @@ class EchoAgentTest {
         assertEquals("call-1",
                 agent.getMemory().asList().get(1).getContent().orElseThrow());
     }
+
+    @Test
+    @DisplayName("Partial output listeners receive streamed chunks for the current step")
+    void partialOutputIsStreamed() {
+        EchoAgent agent = new EchoAgent("streamer");
+        List<String> chunks = new ArrayList<>();
+        agent.setPartialOutputListener((step, chunk) -> chunks.add(step + ":" + chunk));
+
+        List<String> steps = agent.run("Hello streaming world");
+
+        assertEquals(List.of("1:Hello", "1: streaming", "1: world"), chunks);
+        assertEquals(List.of("Step 1: Hello streaming world"), steps);
+        assertEquals("Hello streaming world",
+                agent.getMemory().asList().get(1).getContent().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("runAsync executes the loop on the supplied executor")
+    void runAsyncUsesSuppliedExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "agent-worker"));
+        try {
+            EchoAgent agent = new EchoAgent("async", null, new LLM() {
+                @Override
+                public String respond(java.util.List<org.openmanus.core.Message> messages,
+                        java.util.Optional<java.util.List<org.openmanus.core.Message>> systemMessages,
+                        java.util.Optional<Double> temperature) {
+                    return Thread.currentThread().getName();
+                }
+            }, new Memory());
+
+            CompletableFuture<List<String>> future = agent.runAsync("hi", executor);
+
+            assertEquals(List.of("Step 1: agent-worker"), future.get());
+            assertEquals(AgentState.IDLE, agent.getState());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A deadline aborts the in-flight LLM call and ends the run as cancelled")
+    void deadlineCancelsRun() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        EchoAgent agent = new EchoAgent("slow", null, (messages, systemMessages, temperature) -> {
+            try {
+                Thread.sleep(10_000);
+                return "too late";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+        }, new Memory());
+        RecordingMetrics metrics = new RecordingMetrics();
+        agent.setMetrics(metrics);
+
+        List<String> steps = agent.run("hi", CancellationToken.withTimeout(Duration.ofMillis(50)));
+
+        assertEquals(List.of("Terminated: Deadline exceeded"), steps);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(AgentState.IDLE, agent.getState());
+        assertEquals(1, metrics.getRuns(AgentState.CANCELLED));
+    }
+
+    @Test
+    @DisplayName("A deadline cancels the stream subscription of a streamed step")
+    void deadlineCancelsStream() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        LLM silent = new LLM() {
+            @Override
+            public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                    Optional<Double> temperature) {
+                throw new AssertionError("streamed steps must not call respond");
+            }
+
+            @Override
+            public Flow.Publisher<String> stream(List<Message> messages, Optional<List<Message>> systemMessages,
+                    Optional<Double> temperature) {
+                return subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                        cancelled.countDown();
+                    }
+                });
+            }
+        };
+        EchoAgent agent = new EchoAgent("streamer", null, silent, new Memory());
+        agent.setPartialOutputListener((step, chunk) -> { });
+
+        List<String> steps = agent.run("hi", CancellationToken.withTimeout(Duration.ofMillis(50)));
+
+        assertEquals(List.of("Terminated: Deadline exceeded"), steps);
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A token cancelled before the run starts skips every step")
+    void cancelledTokenSkipsSteps() {
+        EchoAgent agent = new EchoAgent("skipped");
+        CancellationToken token = CancellationToken.create();
+        token.cancel("client went away");
+
+        assertEquals(List.of("Terminated: client went away"), agent.run("hi", token));
+        assertEquals(1, agent.getMemory().size());
+    }
+
+    @Test
+    @DisplayName("Near-duplicate replies end the run early once the stuck step limit is reached")
+    void nearDuplicateRepliesEndRunEarly() {
+        int[] calls = {0};
+        LLM looping = (messages, systemMessages, temperature) -> "Attempt " + ++calls[0]
+                + ": the settings file is still missing, so I will search the workspace directory"
+                + " again and retry starting the service with the default profile.";
+        class LoopingAgent extends BaseAgent {
+            LoopingAgent() {
+                super("looping", null, looping, Memory.builder().similarityIndex(new SimHashIndex()).build());
+            }
+
+            @Override
+            protected String step() {
+                String reply = getLlm().respond(getMemory().asList(), Optional.empty(), Optional.empty());
+                updateMemory(Role.ASSISTANT, reply);
+                return reply;
+            }
+        }
+        LoopingAgent agent = new LoopingAgent();
+        agent.setMaxSteps(20);
+        agent.setStuckStepLimit(2);
+        RecordingMetrics metrics = new RecordingMetrics();
+        agent.setMetrics(metrics);
+
+        List<String> steps = agent.run("start the service");
+
+        assertEquals(3, calls[0]);
+        assertEquals("Terminated: Stuck for 2 consecutive steps", steps.get(steps.size() - 1));
+        assertEquals(2, metrics.getStuckDetections());
+        assertEquals(AgentState.IDLE, agent.getState());
+    }
+
+    @Test
+    @DisplayName("Step listeners receive typed events as each step completes")
+    void stepListenerReceivesEventsIncrementally() {
+        class CountingAgent extends BaseAgent {
+            CountingAgent() {
+                super("counting", null, null, new Memory());
+            }
+
+            @Override
+            protected String step() {
+                updateMemory(Role.ASSISTANT, "reply " + getMemory().size());
+                if (getMemory().size() == 4) {
+                    finish();
+                }
+                return "step done";
+            }
+        }
+        CountingAgent agent = new CountingAgent();
+        agent.setMaxSteps(10);
+        List<StepEvent> events = new ArrayList<>();
+        List<Integer> memorySizes = new ArrayList<>();
+        List<String> terminations = new ArrayList<>();
+
+        agent.run("go", CancellationToken.none(), new StepListener() {
+            @Override
+            public void onStep(StepEvent event) {
+                events.add(event);
+                memorySizes.add(agent.getMemory().size());
+            }
+
+            @Override
+            public void onTermination(String reason) {
+                terminations.add(reason);
+            }
+        });
+
+        assertEquals(List.of(2, 3, 4), memorySizes);
+        assertEquals(List.of(1, 2, 3), events.stream().map(StepEvent::getStep).toList());
+        assertEquals("step done", events.get(0).getResult());
+        assertEquals(AgentState.RUNNING, events.get(0).getToState());
+        assertEquals(AgentState.RUNNING, events.get(2).getFromState());
+        assertEquals(AgentState.FINISHED, events.get(2).getToState());
+        assertFalse(events.get(0).getDuration().isNegative());
+        assertTrue(terminations.isEmpty());
+
+        agent.setMaxSteps(1);
+        agent.getMemory().clear();
+        assertEquals(List.of("Step 1: step done", "Terminated: Reached max steps (1)"), agent.run("more"));
+    }
 }
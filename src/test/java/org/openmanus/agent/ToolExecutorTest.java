@@ -0,0 +1,127 @@
+package org.openmanus.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.core.FunctionCall;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+import org.openmanus.core.Role;
+import org.openmanus.core.ToolCall;
+
+class ToolExecutorTest {
+    @Test
+    @DisplayName("Independent tool calls run concurrently and results keep call order")
+    void runsCallsConcurrentlyInOrder() {
+        ToolRegistry registry = new ToolRegistry().register(sleepingTool("sleep"));
+        List<ToolCall> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // Later calls finish first to prove results are reordered.
+            calls.add(ToolCall.functionCall("call-" + i, new FunctionCall("sleep", String.valueOf(400 - i * 50))));
+        }
+        Memory memory = new Memory();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            ToolExecutor toolExecutor = new ToolExecutor(registry, executor, Duration.ofSeconds(5));
+
+            long started = System.nanoTime();
+            toolExecutor.executeInto(Message.assistantWithTools("", calls), memory);
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+            assertTrue(elapsedMillis < 1_000, "took " + elapsedMillis + " ms");
+            List<Message> history = memory.asList();
+            assertEquals(5, history.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(Role.TOOL, history.get(i).getRole());
+                assertEquals("call-" + i, history.get(i).getToolCallId().orElseThrow());
+                assertEquals("slept " + (400 - i * 50), history.get(i).getContent().orElseThrow());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Unknown tools, failures and timeouts become error results")
+    void reportsErrors() {
+        Tool failing = new Tool() {
+            @Override
+            public String getName() {
+                return "fail";
+            }
+
+            @Override
+            public String execute(String arguments) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        ToolRegistry registry = new ToolRegistry().register(failing).register(sleepingTool("sleep"));
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            ToolExecutor toolExecutor = new ToolExecutor(registry, executor, Duration.ofMillis(100));
+
+            List<Message> results = toolExecutor.execute(Message.assistantWithTools("", List.of(
+                    ToolCall.functionCall("a", new FunctionCall("missing", "{}")),
+                    ToolCall.functionCall("b", new FunctionCall("fail", "{}")),
+                    ToolCall.functionCall("c", new FunctionCall("sleep", "5000")))));
+
+            assertTrue(results.get(0).getContent().orElseThrow().contains("unknown tool"));
+            assertTrue(results.get(1).getContent().orElseThrow().contains("boom"));
+            assertTrue(results.get(2).getContent().orElseThrow().contains("timed out"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Each call's timeout starts when it runs, not while it waits for a thread")
+    void timeoutStartsWhenCallRuns() {
+        ToolRegistry registry = new ToolRegistry().register(sleepingTool("sleep"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ToolExecutor toolExecutor = new ToolExecutor(registry, executor, Duration.ofMillis(300));
+
+            List<Message> results = toolExecutor.execute(Message.assistantWithTools("", List.of(
+                    ToolCall.functionCall("a", new FunctionCall("sleep", "200")),
+                    ToolCall.functionCall("b", new FunctionCall("sleep", "200")))));
+
+            assertEquals("slept 200", results.get(0).getContent().orElseThrow());
+            assertEquals("slept 200", results.get(1).getContent().orElseThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A call the executor never runs times out instead of hanging")
+    void droppedCallTimesOut() {
+        ToolRegistry registry = new ToolRegistry().register(sleepingTool("sleep"));
+        ToolExecutor toolExecutor = new ToolExecutor(registry, task -> { }, Duration.ofMillis(100));
+
+        List<Message> results = toolExecutor.execute(Message.assistantWithTools("", List.of(
+                ToolCall.functionCall("a", new FunctionCall("sleep", "0")))));
+
+        assertTrue(results.get(0).getContent().orElseThrow().contains("timed out"));
+    }
+
+    private static Tool sleepingTool(String name) {
+        return new Tool() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String execute(String arguments) throws InterruptedException {
+                Thread.sleep(Long.parseLong(arguments));
+                return "slept " + arguments;
+            }
+        };
+    }
+}
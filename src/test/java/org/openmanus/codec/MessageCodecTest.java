@@ -0,0 +1,101 @@
+package org.openmanus.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.core.FunctionCall;
+import org.openmanus.core.Message;
+import org.openmanus.core.ToolCall;
+
+class MessageCodecTest {
+    private static final List<Message> CONVERSATION = List.of(
+            Message.system("Be \"precise\"\n\ttabs \\ and \u0001 control"),
+            Message.user("Grüße 👋 from 東京"),
+            Message.assistantWithTools(null, List.of(
+                    ToolCall.functionCall("call-1", new FunctionCall("lookup", "{\"city\":\"Paris\"}")),
+                    ToolCall.functionCall("call-2", new FunctionCall("time", "{}")))),
+            Message.tool("{\"forecast\":\"sunny\"}", "lookup", "call-1"));
+
+    @Test
+    @DisplayName("JSON output matches the toMap wire format and round trips")
+    void jsonRoundTrip() throws IOException {
+        MessageJsonCodec codec = new MessageJsonCodec();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        codec.writeAll(CONVERSATION, out);
+        List<Message> decoded = codec.readAll(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(maps(CONVERSATION), maps(decoded));
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"tool_calls\":[{\"id\":\"call-1\",\"type\":\"function\","
+                + "\"function\":{\"name\":\"lookup\",\"arguments\":\"{\\\"city\\\":\\\"Paris\\\"}\"}}"));
+        assertTrue(json.contains("\\u0001"));
+    }
+
+    @Test
+    @DisplayName("JSON reader skips unknown fields and accepts nulls")
+    void jsonReaderIsLenientAboutExtras() throws IOException {
+        String json = "{ \"role\" : \"assistant\", \"content\": null, \"refusal\": {\"a\": [1, 2.5e3, true]},"
+                + " \"tool_calls\": [], \"name\": \"bot\" }";
+
+        Message message = new MessageJsonCodec().read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(message.getContent().isEmpty());
+        assertTrue(message.getToolCalls().isEmpty());
+        assertEquals("bot", message.getName().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Binary encoding round trips through heap and direct buffers")
+    void binaryRoundTrip() {
+        MessageBinaryCodec codec = new MessageBinaryCodec();
+        int size = 0;
+        for (Message message : CONVERSATION) {
+            size += codec.encodedSize(message);
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(size);
+        for (Message message : CONVERSATION) {
+            codec.encode(message, direct);
+        }
+        assertEquals(0, direct.remaining());
+        direct.flip();
+
+        for (Message message : CONVERSATION) {
+            assertEquals(message.toMap(), codec.decode(direct).toMap());
+            assertEquals(message.toMap(), codec.decode(codec.encode(message)).toMap());
+        }
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(ByteBuffer.wrap(new byte[] {1, 0})));
+    }
+
+    @Test
+    @DisplayName("Missing required fields are reported by name and roles use stable codes")
+    void rejectsMissingFields() {
+        MessageJsonCodec json = new MessageJsonCodec();
+        IllegalArgumentException noRole = assertThrows(IllegalArgumentException.class,
+                () -> json.read(new ByteArrayInputStream("{\"content\":\"hi\"}".getBytes(StandardCharsets.UTF_8))));
+        assertTrue(noRole.getMessage().contains("'role'"));
+        String incomplete = "{\"role\":\"assistant\",\"tool_calls\":[{\"id\":\"c\",\"function\":{\"name\":\"f\"}}]}";
+        IllegalArgumentException noArguments = assertThrows(IllegalArgumentException.class,
+                () -> json.read(new ByteArrayInputStream(incomplete.getBytes(StandardCharsets.UTF_8))));
+        assertTrue(noArguments.getMessage().contains("arguments"));
+
+        MessageBinaryCodec binary = new MessageBinaryCodec();
+        assertEquals(3, binary.encode(Message.tool("{}", "lookup", "call-1")).get(0));
+        ByteBuffer missingId = binary.encode(CONVERSATION.get(2));
+        // The first tool call id follows the role byte, three absent strings and the call count.
+        missingId.putInt(1 + 4 + 4 + 4 + 4, -1);
+        IllegalArgumentException noId = assertThrows(IllegalArgumentException.class, () -> binary.decode(missingId));
+        assertTrue(noId.getMessage().contains("tool call id"));
+    }
+
+    private static List<?> maps(List<Message> messages) {
+        return messages.stream().map(Message::toMap).toList();
+    }
+}
@@ -0,0 +1,40 @@
+package org.openmanus.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ContentPoolTest {
+    @Test
+    @DisplayName("Equal contents built through the pool share one instance")
+    void internsContents() {
+        ContentPool pool = new ContentPool(4);
+        String first = new String("repeated tool output");
+        String second = new String("repeated tool output");
+
+        Message a = Message.builder().role(Role.TOOL).content(first).name(new String("search"))
+                .toolCallId("1").contentPool(pool).build();
+        Message b = Message.builder().role(Role.TOOL).content(second).name(new String("search"))
+                .toolCallId("2").contentPool(pool).build();
+
+        assertSame(a.getContent().orElseThrow(), b.getContent().orElseThrow());
+        assertSame(a.getName().orElseThrow(), b.getName().orElseThrow());
+        assertNull(pool.intern(null));
+    }
+
+    @Test
+    @DisplayName("System prompts resolve to shared prebuilt messages within the LRU bound")
+    void sharesSystemMessages() {
+        ContentPool pool = new ContentPool(2);
+        List<Message> first = pool.systemMessages("You are helpful.");
+
+        assertSame(first, pool.systemMessages(new String("You are helpful.")));
+        assertEquals(Role.SYSTEM, pool.systemMessage("You are helpful.").getRole());
+
+        pool.systemMessages("b");
+        pool.systemMessages("c");
+        assertNotSame(first, pool.systemMessages("You are helpful."));
+    }
+}
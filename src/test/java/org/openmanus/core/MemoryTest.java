@@ -0,0 +1,176 @@
+package org.openmanus.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MemoryTest {
+    @Test
+    @DisplayName("Assistant content counts track additions, FIFO eviction and clear")
+    void assistantContentIndexFollowsEviction() {
+        Memory memory = new Memory(3);
+        memory.addMessages(List.of(
+                Message.assistant("same"),
+                Message.user("same"),
+                Message.assistant("same")));
+
+        assertEquals(2, memory.countAssistantMessagesWithContent("same"));
+
+        memory.addMessage(Message.assistant("other"));
+        assertEquals(1, memory.countAssistantMessagesWithContent("same"));
+        assertEquals(1, memory.countAssistantMessagesWithContent("other"));
+
+        memory.addMessages(List.of(Message.assistant("next"), Message.user("last")));
+        assertEquals(0, memory.countAssistantMessagesWithContent("same"));
+
+        memory.clear();
+        assertEquals(0, memory.countAssistantMessagesWithContent("other"));
+        assertEquals(0, memory.size());
+        assertTrue(memory.lastMessage().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Snapshots stay stable while the buffer keeps evicting and relocating")
+    void snapshotsAreImmutableViews() {
+        Memory memory = new Memory(4);
+        for (int i = 0; i < 4; i++) {
+            memory.addMessage(Message.user("m" + i));
+        }
+        List<Message> before = memory.asList();
+        List<Message> tail = memory.recentMessages(2);
+
+        for (int i = 4; i < 40; i++) {
+            memory.addMessage(i % 2 == 0 ? Message.user("m" + i) : Message.assistant("a" + i));
+        }
+
+        assertEquals(List.of("m0", "m1", "m2", "m3"), contents(before));
+        assertEquals(List.of("m2", "m3"), contents(tail));
+        assertEquals(List.of("m36", "a37", "m38", "a39"), contents(memory.asList()));
+        assertEquals(List.of("m38", "a39"), contents(memory.recentMessages(2)));
+        assertEquals("a39", memory.lastAssistantMessage().orElseThrow().getContent().orElseThrow());
+        assertEquals("m38", memory.lastUserMessage().orElseThrow().getContent().orElseThrow());
+        assertThrows(UnsupportedOperationException.class, () -> memory.asList().add(Message.user("x")));
+    }
+
+    @Test
+    @DisplayName("Token budgets evict oldest messages and bound recent selections")
+    void tokenBudgetBoundsHistory() {
+        TokenEstimator lengthEstimator = message -> message.getContent().orElse("").length();
+        Memory memory = Memory.builder().maxTokens(10).tokenEstimator(lengthEstimator).build();
+
+        memory.addMessages(List.of(Message.user("aaaa"), Message.assistant("bbb"), Message.user("cc")));
+        assertEquals(9, memory.tokenCount());
+        assertEquals(List.of("bbb", "cc"), contents(memory.recentMessagesWithinTokens(5)));
+        assertEquals(List.of("cc"), contents(memory.recentMessagesWithinTokens(4)));
+        assertTrue(memory.recentMessagesWithinTokens(1).isEmpty());
+
+        memory.addMessage(Message.assistant("dddd"));
+        assertEquals(List.of("bbb", "cc", "dddd"), contents(memory.asList()));
+        assertEquals(9, memory.tokenCount());
+
+        memory.addMessage(Message.user("x".repeat(20)));
+        assertEquals(1, memory.size());
+        assertEquals(20, memory.tokenCount());
+    }
+
+    @Test
+    @DisplayName("Concurrent writers keep FIFO eviction exact while readers see consistent snapshots")
+    void concurrentAppendsAndSnapshots() throws Exception {
+        int writers = 8;
+        int perWriter = 10_000;
+        int capacity = 1_000;
+        Memory memory = new Memory(capacity);
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                writes.add(pool.submit(() -> {
+                    start.await();
+                    for (int seq = 0; seq < perWriter; seq++) {
+                        memory.addMessage(Message.user(writer + ":" + seq));
+                    }
+                    return null;
+                }));
+            }
+            List<Future<Integer>> reads = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                reads.add(pool.submit(() -> {
+                    start.await();
+                    int snapshots = 0;
+                    while (writing.get()) {
+                        List<Message> snapshot = snapshots % 2 == 0 ? memory.asList() : memory.recentMessages(500);
+                        List<String> first = contents(snapshot);
+                        assertTrue(first.size() <= capacity);
+                        assertOrderedPerWriter(first, writers);
+                        assertEquals(first, contents(snapshot));
+                        snapshots++;
+                    }
+                    return snapshots;
+                }));
+            }
+            start.countDown();
+            for (Future<?> write : writes) {
+                write.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<Integer> read : reads) {
+                assertTrue(read.get(60, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long total = (long) writers * perWriter;
+        assertEquals(capacity, memory.size());
+        assertEquals(total - capacity, memory.evictionCount());
+        // FIFO eviction: every writer's surviving messages are the tail of its own sequence.
+        List<String> remaining = contents(memory.asList());
+        int[] expectedNext = new int[writers];
+        Arrays.fill(expectedNext, -1);
+        for (String content : remaining) {
+            int writer = writerOf(content);
+            int seq = seqOf(content);
+            assertTrue(expectedNext[writer] == -1 || expectedNext[writer] == seq, content);
+            expectedNext[writer] = seq + 1;
+        }
+        for (int next : expectedNext) {
+            assertTrue(next == -1 || next == perWriter);
+        }
+    }
+
+    private static void assertOrderedPerWriter(List<String> contents, int writers) {
+        int[] last = new int[writers];
+        Arrays.fill(last, -1);
+        for (String content : contents) {
+            int writer = writerOf(content);
+            int seq = seqOf(content);
+            assertTrue(seq > last[writer], "out of order: " + content);
+            last[writer] = seq;
+        }
+    }
+
+    private static int writerOf(String content) {
+        return Integer.parseInt(content.substring(0, content.indexOf(':')));
+    }
+
+    private static int seqOf(String content) {
+        return Integer.parseInt(content.substring(content.indexOf(':') + 1));
+    }
+
+    private static List<String> contents(List<Message> messages) {
+        return messages.stream().map(message -> message.getContent().orElseThrow()).toList();
+    }
+}
@@ -0,0 +1,72 @@
+package org.openmanus.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SimHashIndexTest {
+    private static final String REPLY = "I could not find the configuration file in the workspace. "
+            + "Let me search the project directory again for any file named settings and read it "
+            + "before trying to start the service on port 8080 with the default profile.";
+
+    @Test
+    @DisplayName("Replies differing in numbers, spacing or a word are near-duplicates; unrelated ones are not")
+    void fingerprintsTolerateSmallEdits() {
+        SimHashIndex index = new SimHashIndex();
+        index.add(index.fingerprint(REPLY));
+
+        String renumbered = REPLY.replace("8080", "9090");
+        String respaced = REPLY.replace(" ", "  ").replace(".", " .").toUpperCase();
+        String reworded = REPLY.replace("default", "production") + " Sorry.";
+        String unrelated = "The build finished successfully and all forty two tests passed on the first attempt.";
+
+        assertEquals(index.fingerprint(REPLY), index.fingerprint(renumbered));
+        assertEquals(index.fingerprint(REPLY), index.fingerprint(respaced));
+        assertEquals(1, index.countSimilar(index.fingerprint(reworded)));
+        assertEquals(0, index.countSimilar(index.fingerprint(unrelated)));
+    }
+
+    @Test
+    @DisplayName("Band lookups count every fingerprint within the distance exactly once")
+    void countsMatchLinearScan() {
+        SimHashIndex index = new SimHashIndex(3);
+        long base = 0x5DEECE66DL * 0x9E3779B97F4A7C15L;
+        long[] stored = {base, base ^ 1, base ^ 0b111, base ^ (1L << 63 | 1L << 20), base ^ 0b1111, ~base};
+        for (long fingerprint : stored) {
+            index.add(fingerprint);
+        }
+        index.add(base);
+
+        assertEquals(5, index.countSimilar(base));
+        assertEquals(1, index.countSimilar(~base));
+
+        index.remove(base);
+        index.remove(base ^ 1);
+        assertEquals(3, index.countSimilar(base));
+        index.clear();
+        assertEquals(0, index.countSimilar(base));
+    }
+
+    @Test
+    @DisplayName("Memory keeps the index in step with eviction and clear")
+    void memoryMaintainsIndex() {
+        Memory memory = Memory.builder().maxMessages(3).similarityIndex(new SimHashIndex()).build();
+        memory.addMessages(List.of(
+                Message.assistant(REPLY),
+                Message.user("try again"),
+                Message.assistant(REPLY.replace("8080", "8081"))));
+        assertEquals(2, memory.countAssistantMessagesSimilarToLast());
+
+        memory.addMessage(Message.assistant(REPLY.replace("8080", "8082")));
+        assertEquals(2, memory.countAssistantMessagesSimilarToLast());
+
+        memory.addMessage(Message.user("stop"));
+        assertEquals(0, memory.countAssistantMessagesSimilarToLast());
+
+        memory.clear();
+        memory.addMessage(Message.assistant(REPLY));
+        assertEquals(1, memory.countAssistantMessagesSimilarToLast());
+    }
+}
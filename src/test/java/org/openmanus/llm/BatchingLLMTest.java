@@ -0,0 +1,153 @@
+package org.openmanus.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.exception.CancelledException;
+import org.openmanus.exception.LLMException;
+
+class BatchingLLMTest {
+    @Test
+    @DisplayName("Concurrent calls are coalesced and each caller gets its own response")
+    void coalescesConcurrentCalls() throws Exception {
+        BatchRecordingLLM backend = new BatchRecordingLLM();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try (BatchingLLM llm = BatchingLLM.builder(backend)
+                .maxBatchSize(4)
+                .maxDelay(Duration.ofMillis(200))
+                .build()) {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String prompt = "q" + i;
+                futures.add(CompletableFuture.supplyAsync(() -> llm.respond(
+                        List.of(Message.user(prompt)), Optional.empty(), Optional.empty()), callers));
+            }
+            for (int i = 0; i < 8; i++) {
+                assertEquals("echo:q" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(8, llm.getBatchedRequestCount());
+            assertTrue(llm.getBatchCount() < 8);
+            assertTrue(backend.batchSizes.stream().allMatch(size -> size <= 4));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A lone request is dispatched once the batching window closes")
+    void dispatchesAfterWindow() {
+        BatchRecordingLLM backend = new BatchRecordingLLM();
+        try (BatchingLLM llm = BatchingLLM.builder(backend).maxDelay(Duration.ofMillis(10)).build()) {
+            assertEquals("echo:solo", llm.respond(List.of(Message.user("solo")), Optional.empty(), Optional.empty()));
+            assertEquals(List.of(1), backend.batchSizes);
+        }
+    }
+
+    @Test
+    @DisplayName("Batch failures propagate to every caller in the batch")
+    void failuresPropagate() {
+        LLM failing = (messages, systemMessages, temperature) -> {
+            throw new LLMException("backend down");
+        };
+        try (BatchingLLM llm = BatchingLLM.builder(failing).maxDelay(Duration.ZERO).build()) {
+            LLMException error = assertThrows(LLMException.class,
+                    () -> llm.respond(List.of(Message.user("x")), Optional.empty(), Optional.empty()));
+            assertEquals("backend down", error.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Calls racing with close either complete or fail, never hang")
+    void closeRacingRespondNeverHangs() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                BatchingLLM llm = BatchingLLM.builder(new BatchRecordingLLM()).maxDelay(Duration.ZERO).build();
+                List<CompletableFuture<String>> futures = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    futures.add(CompletableFuture.supplyAsync(() -> llm.respond(
+                            List.of(Message.user("race")), Optional.empty(), Optional.empty()), callers));
+                }
+                llm.close();
+                for (CompletableFuture<String> future : futures) {
+                    try {
+                        assertEquals("echo:race", future.get(5, TimeUnit.SECONDS));
+                    } catch (ExecutionException e) {
+                        assertInstanceOf(LLMException.class, e.getCause());
+                    }
+                }
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A cancelled caller stops waiting while the rest of its batch completes")
+    void cancelledCallerLeavesBatch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BatchRecordingLLM backend = new BatchRecordingLLM() {
+            @Override
+            public List<String> respondBatch(List<LLMRequest> requests) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.respondBatch(requests);
+            }
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try (BatchingLLM llm = BatchingLLM.builder(backend).maxBatchSize(2).maxDelay(Duration.ofSeconds(1)).build()) {
+            CancellationToken token = CancellationToken.create();
+            CompletableFuture<String> cancelled = CompletableFuture.supplyAsync(() -> llm.respond(
+                    List.of(Message.user("a")), Optional.empty(), Optional.empty(), token), callers);
+            CompletableFuture<String> kept = CompletableFuture.supplyAsync(() -> llm.respond(
+                    List.of(Message.user("b")), Optional.empty(), Optional.empty()), callers);
+            Thread.sleep(100);
+
+            token.cancel("caller gave up");
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> cancelled.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CancelledException.class, error.getCause());
+
+            release.countDown();
+            assertEquals("echo:b", kept.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    /**
+     * Deterministic backend that echoes each request and records batch sizes.
+     */
+    private static class BatchRecordingLLM implements LLM {
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                Optional<Double> temperature) {
+            return "echo:" + messages.get(messages.size() - 1).getContent().orElse("");
+        }
+
+        @Override
+        public List<String> respondBatch(List<LLMRequest> requests) {
+            batchSizes.add(requests.size());
+            return LLM.super.respondBatch(requests);
+        }
+    }
+}
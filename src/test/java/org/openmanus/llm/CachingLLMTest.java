@@ -0,0 +1,312 @@
+package org.openmanus.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.FunctionCall;
+import org.openmanus.core.Message;
+import org.openmanus.core.ToolCall;
+import org.openmanus.exception.CancelledException;
+import org.openmanus.exception.LLMException;
+
+class CachingLLMTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Identical requests are served from cache, differing ones are not")
+    void cachesIdenticalRequests() {
+        CountingLLM delegate = new CountingLLM();
+        CachingLLM llm = CachingLLM.builder(delegate).build();
+        List<Message> history = List.of(
+                Message.user("hi"),
+                Message.assistantWithTools("", List.of(ToolCall.functionCall("1", new FunctionCall("f", "{}")))));
+
+        String first = llm.respond(history, Optional.empty(), Optional.of(0.2));
+        String second = llm.respond(List.copyOf(history), Optional.empty(), Optional.of(0.2));
+        llm.respond(history, Optional.empty(), Optional.of(0.3));
+        llm.respond(history, Optional.of(List.of(Message.system("sys"))), Optional.of(0.2));
+
+        assertEquals(first, second);
+        assertEquals(3, delegate.calls.get());
+    }
+
+    @Test
+    @DisplayName("Entries expire after the TTL and the LRU keeps at most maxEntries")
+    void honoursTtlAndSize() {
+        CountingLLM delegate = new CountingLLM();
+        MutableClock clock = new MutableClock();
+        CachingLLM llm = CachingLLM.builder(delegate)
+                .maxEntries(2)
+                .ttl(Duration.ofSeconds(10))
+                .clock(clock)
+                .build();
+
+        ask(llm, "a");
+        ask(llm, "b");
+        ask(llm, "a");
+        ask(llm, "c");
+        assertEquals(2, llm.size());
+        assertEquals(3, delegate.calls.get());
+
+        ask(llm, "b");
+        assertEquals(4, delegate.calls.get());
+
+        clock.advance(Duration.ofSeconds(11));
+        ask(llm, "b");
+        assertEquals(5, delegate.calls.get());
+    }
+
+    @Test
+    @DisplayName("The on-disk tier survives a new cache instance")
+    void diskTierPersistsResponses() {
+        CountingLLM delegate = new CountingLLM();
+        CachingLLM first = CachingLLM.builder(delegate).directory(tempDir).build();
+        String response = ask(first, "persist me");
+
+        CachingLLM second = CachingLLM.builder(delegate).directory(tempDir).build();
+        assertEquals(response, ask(second, "persist me"));
+        assertEquals(1, delegate.calls.get());
+
+        second.invalidateAll();
+        ask(second, "persist me");
+        assertEquals(2, delegate.calls.get());
+    }
+
+    @Test
+    @DisplayName("The disk tier deletes expired files and prunes the oldest beyond its bound")
+    void diskTierIsBounded() throws IOException {
+        CountingLLM delegate = new CountingLLM();
+        MutableClock clock = new MutableClock();
+        CachingLLM llm = CachingLLM.builder(delegate)
+                .maxEntries(2)
+                .maxDiskEntries(4)
+                .ttl(Duration.ofSeconds(10))
+                .clock(clock)
+                .directory(tempDir)
+                .build();
+        for (String prompt : List.of("a", "b", "c", "d", "e")) {
+            ask(llm, prompt);
+            clock.advance(Duration.ofSeconds(1));
+        }
+        assertEquals(List.of(), files(".tmp"));
+        assertEquals(3, files(".entry").size());
+
+        CachingLLM reopened = CachingLLM.builder(delegate).ttl(Duration.ofSeconds(10)).clock(clock)
+                .directory(tempDir).build();
+        ask(reopened, "e");
+        assertEquals(5, delegate.calls.get());
+        ask(reopened, "a");
+        assertEquals(6, delegate.calls.get());
+
+        clock.advance(Duration.ofSeconds(20));
+        LLM failing = (messages, systemMessages, temperature) -> {
+            throw new LLMException("offline");
+        };
+        CachingLLM expired = CachingLLM.builder(failing).ttl(Duration.ofSeconds(10)).clock(clock)
+                .directory(tempDir).build();
+        assertThrows(LLMException.class, () -> ask(expired, "e"));
+        assertEquals(3, files(".entry").size());
+        assertFalse(Files.exists(tempDir.resolve(RequestKeys.of(List.of(Message.user("e")), Optional.empty(),
+                Optional.empty()) + ".entry")));
+    }
+
+    @Test
+    @DisplayName("Concurrent identical requests are coalesced into one delegate call")
+    void coalescesInFlightRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        LLM slow = (messages, systemMessages, temperature) -> {
+            calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "shared";
+        };
+        CachingLLM llm = CachingLLM.builder(slow).build();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<String>> futures = List.of(
+                    CompletableFuture.supplyAsync(() -> ask(llm, "q"), executor),
+                    CompletableFuture.supplyAsync(() -> ask(llm, "q"), executor),
+                    CompletableFuture.supplyAsync(() -> ask(llm, "q"), executor));
+            Thread.sleep(100);
+            release.countDown();
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("shared", future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A corrupt disk entry counts as a miss and is deleted")
+    void corruptDiskEntryIsAMiss() throws IOException {
+        CountingLLM delegate = new CountingLLM();
+        ask(CachingLLM.builder(delegate).directory(tempDir).build(), "q");
+        Path entry = files(".entry").get(0);
+        ByteBuffer corrupt = ByteBuffer.allocate(12).putLong(0).putInt(-7);
+        Files.write(entry, corrupt.array());
+
+        CachingLLM reopened = CachingLLM.builder(failing()).directory(tempDir).build();
+        assertThrows(LLMException.class, () -> ask(reopened, "q"));
+        assertFalse(Files.exists(entry));
+
+        Files.write(entry, ByteBuffer.allocate(12).putLong(0).putInt(Integer.MAX_VALUE).array());
+        assertThrows(LLMException.class, () -> ask(reopened, "q"));
+        assertFalse(Files.exists(entry));
+    }
+
+    private static LLM failing() {
+        return (messages, systemMessages, temperature) -> {
+            throw new LLMException("offline");
+        };
+    }
+
+    @Test
+    @DisplayName("Cancellation reaches the delegate only once every coalesced caller has cancelled")
+    void cancellationIsSharedAcrossWaiters() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delegateCancelled = new CountDownLatch(1);
+        LLM slow = new LLM() {
+            @Override
+            public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                    Optional<Double> temperature) {
+                throw new AssertionError("the token overload must be used");
+            }
+
+            @Override
+            public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                    Optional<Double> temperature, CancellationToken token) {
+                token.onCancel(delegateCancelled::countDown);
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                token.throwIfCancelled();
+                return "shared";
+            }
+        };
+        CachingLLM llm = CachingLLM.builder(slow).build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CancellationToken leaderToken = CancellationToken.create();
+            CancellationToken followerToken = CancellationToken.create();
+            CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> ask(llm, "q", leaderToken), executor);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> follower =
+                    CompletableFuture.supplyAsync(() -> ask(llm, "q", followerToken), executor);
+            Thread.sleep(50);
+
+            followerToken.cancel("follower gave up");
+            ExecutionException error = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CancelledException.class, error.getCause());
+            assertEquals(1, delegateCancelled.getCount());
+
+            release.countDown();
+            assertEquals("shared", leader.get(5, TimeUnit.SECONDS));
+
+            CountDownLatch aborted = new CountDownLatch(1);
+            CachingLLM lone = CachingLLM.builder(new LLM() {
+                @Override
+                public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                        Optional<Double> temperature) {
+                    throw new AssertionError("the token overload must be used");
+                }
+
+                @Override
+                public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                        Optional<Double> temperature, CancellationToken token) {
+                    token.onCancel(aborted::countDown);
+                    try {
+                        aborted.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    token.throwIfCancelled();
+                    return "too late";
+                }
+            }).build();
+            CancellationToken loneToken = CancellationToken.withTimeout(Duration.ofMillis(50));
+            assertThrows(CancelledException.class, () -> ask(lone, "q", loneToken));
+            assertEquals(0, aborted.getCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String ask(LLM llm, String prompt, CancellationToken token) {
+        return llm.respond(List.of(Message.user(prompt)), Optional.empty(), Optional.empty(), token);
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(suffix)).toList();
+        }
+    }
+
+    private static String ask(LLM llm, String prompt) {
+        return llm.respond(List.of(Message.user(prompt)), Optional.empty(), Optional.empty());
+    }
+
+    private static final class CountingLLM implements LLM {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                Optional<Double> temperature) {
+            return "response-" + calls.incrementAndGet();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.EPOCH;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
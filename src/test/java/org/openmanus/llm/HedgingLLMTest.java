@@ -0,0 +1,132 @@
+package org.openmanus.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.core.Message;
+import org.openmanus.exception.LLMException;
+
+class HedgingLLMTest {
+    private static final List<Message> PROMPT = List.of(Message.user("hi"));
+
+    @Test
+    @DisplayName("A slow primary is hedged, the backup wins and the primary is cancelled")
+    void backupWinsAndPrimaryIsCancelled() throws Exception {
+        FakeBackend primary = new FakeBackend("primary", () -> 5_000);
+        FakeBackend backup = new FakeBackend("backup", () -> 1);
+        HedgingLLM llm = HedgingLLM.builder(primary)
+                .backup(backup)
+                .initialDelay(Duration.ofMillis(20))
+                .maxHedgeRate(1.0)
+                .build();
+
+        long started = System.nanoTime();
+        assertEquals("backup", llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2));
+        assertTrue(primary.cancelled.await(5, TimeUnit.SECONDS));
+        assertEquals(1, llm.getHedgeCount());
+        assertEquals(1, llm.getHedgeWinCount());
+    }
+
+    @Test
+    @DisplayName("Fast responses are not hedged and shrink the hedge delay")
+    void fastResponsesAdaptDelay() {
+        FakeBackend primary = new FakeBackend("primary", () -> 1);
+        FakeBackend backup = new FakeBackend("backup", () -> 1);
+        HedgingLLM llm = HedgingLLM.builder(primary)
+                .backup(backup)
+                .initialDelay(Duration.ofSeconds(1))
+                .minDelay(Duration.ZERO)
+                .minSamples(10)
+                .maxHedgeRate(1.0)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("primary", llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+        }
+
+        assertEquals(0, llm.getHedgeCount());
+        assertEquals(0, backup.calls.get());
+        assertEquals(0, HedgingLLM.scheduledHedgeTimers());
+        assertTrue(llm.getHedgeDelay().compareTo(Duration.ofMillis(500)) < 0, llm.getHedgeDelay().toString());
+    }
+
+    @Test
+    @DisplayName("The hedge budget caps the fraction of hedged requests")
+    void hedgeRateIsCapped() {
+        FakeBackend primary = new FakeBackend("primary", () -> 30);
+        HedgingLLM llm = HedgingLLM.builder(primary)
+                .initialDelay(Duration.ofMillis(1))
+                .minDelay(Duration.ofMillis(1))
+                .maxHedgeRate(0.25)
+                .build();
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals("primary", llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+        }
+
+        assertEquals(2, llm.getHedgeCount());
+        assertEquals(10, primary.calls.get());
+    }
+
+    @Test
+    @DisplayName("The call fails only after every launched attempt has failed")
+    void failsWhenAllAttemptsFail() {
+        FakeBackend primary = new FakeBackend("primary", () -> 50);
+        primary.failing = true;
+        FakeBackend backup = new FakeBackend("backup", () -> 50);
+        backup.failing = true;
+        HedgingLLM llm = HedgingLLM.builder(primary)
+                .backup(backup)
+                .initialDelay(Duration.ofMillis(5))
+                .maxHedgeRate(1.0)
+                .build();
+
+        LLMException e = assertThrows(LLMException.class,
+                () -> llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+
+        assertTrue(e.getMessage().endsWith("failed"));
+        assertEquals(1, backup.calls.get());
+    }
+
+    /**
+     * Backend whose response time is drawn from a configurable distribution.
+     */
+    private static final class FakeBackend implements LLM {
+        private final String name;
+        private final LongSupplier latencyMillis;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+        private volatile boolean failing;
+
+        FakeBackend(String name, LongSupplier latencyMillis) {
+            this.name = name;
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                Optional<Double> temperature) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(latencyMillis.getAsLong());
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+                throw new LLMException(name + " interrupted", e);
+            }
+            if (failing) {
+                throw new LLMException(name + " failed");
+            }
+            return name;
+        }
+    }
+}
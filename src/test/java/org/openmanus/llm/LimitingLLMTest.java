@@ -0,0 +1,123 @@
+package org.openmanus.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.exception.CancelledException;
+import org.openmanus.exception.LLMException;
+
+class LimitingLLMTest {
+    private static final List<Message> PROMPT = List.of(Message.user("hi"));
+
+    @Test
+    @DisplayName("Transient failures are retried with backoff until the call succeeds")
+    void retriesTransientFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        LimitingLLM llm = LimitingLLM.builder((messages, systemMessages, temperature) -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new LLMException("429 Too Many Requests", new IOException("throttled"));
+            }
+            return "ok";
+        }).backoff(Duration.ofMillis(1), Duration.ofMillis(5)).build();
+
+        assertEquals("ok", llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+        assertEquals(3, calls.get());
+        assertEquals(2, llm.getRetryCount());
+        assertEquals(0, llm.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Permanent failures are not retried and transient ones stop at maxAttempts")
+    void limitsRetries() {
+        AtomicInteger permanentCalls = new AtomicInteger();
+        LimitingLLM permanent = LimitingLLM.builder((messages, systemMessages, temperature) -> {
+            permanentCalls.incrementAndGet();
+            throw new IllegalStateException("bad request");
+        }).build();
+        assertThrows(IllegalStateException.class, () -> permanent.respond(PROMPT, Optional.empty(), Optional.empty()));
+        assertEquals(1, permanentCalls.get());
+
+        AtomicInteger transientCalls = new AtomicInteger();
+        LimitingLLM flaky = LimitingLLM.builder((messages, systemMessages, temperature) -> {
+            transientCalls.incrementAndGet();
+            throw new LLMException("unavailable", new IOException("reset"));
+        }).maxAttempts(4).backoff(Duration.ZERO, Duration.ZERO).build();
+        assertThrows(LLMException.class, () -> flaky.respond(PROMPT, Optional.empty(), Optional.empty()));
+        assertEquals(4, transientCalls.get());
+    }
+
+    @Test
+    @DisplayName("The request bucket spaces calls at the configured rate and honours cancellation")
+    void rateLimitsRequests() {
+        LimitingLLM llm = LimitingLLM.builder((messages, systemMessages, temperature) -> "ok")
+                .requestsPerSecond(20, 1)
+                .build();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            llm.respond(PROMPT, Optional.empty(), Optional.empty());
+        }
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(150));
+
+        LimitingLLM slow = LimitingLLM.builder((messages, systemMessages, temperature) -> "ok")
+                .requestsPerSecond(0.1, 1)
+                .build();
+        slow.respond(PROMPT, Optional.empty(), Optional.empty());
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofMillis(50));
+        assertThrows(CancelledException.class,
+                () -> slow.respond(PROMPT, Optional.empty(), Optional.empty(), token));
+    }
+
+    @Test
+    @DisplayName("The concurrency limit backs off when the backend signals overload")
+    void concurrencyLimitAdaptsToOverload() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        LLM backend = (messages, systemMessages, temperature) -> {
+            try {
+                if (running.incrementAndGet() > 4) {
+                    throw new LLMException("overloaded", new IOException("429"));
+                }
+                Thread.sleep(2);
+                return "ok";
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+        LimitingLLM llm = LimitingLLM.builder(backend)
+                .concurrency(16, 1, 64)
+                .maxAttempts(100)
+                .backoff(Duration.ofMillis(1), Duration.ofMillis(10))
+                .build();
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 160; i++) {
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> llm.respond(PROMPT, Optional.empty(), Optional.empty()), callers));
+            }
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("ok", future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertTrue(llm.getConcurrencyLimit() < 16, "limit " + llm.getConcurrencyLimit());
+        assertTrue(llm.getRetryCount() > 0);
+    }
+}
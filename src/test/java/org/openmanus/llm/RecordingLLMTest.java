@@ -0,0 +1,129 @@
+package org.openmanus.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmanus.agent.EchoAgent;
+import org.openmanus.core.CancellationToken;
+import org.openmanus.core.Message;
+import org.openmanus.exception.CancelledException;
+import org.openmanus.exception.LLMException;
+
+class RecordingLLMTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("A recorded agent run replays offline with identical results")
+    void replaysRecordedRun() throws IOException {
+        Path file = tempDir.resolve("run.rec");
+        AtomicInteger calls = new AtomicInteger();
+        LLM live = (messages, systemMessages, temperature) -> "answer " + calls.incrementAndGet() + " to "
+                + messages.get(messages.size() - 1).getContent().orElse("");
+        List<String> recordedSteps;
+        try (RecordingLLM recording = RecordingLLM.open(live, file)) {
+            recordedSteps = new EchoAgent("recorded", null, recording, null).run("hello");
+            assertEquals(1, recording.getRecordedCount());
+        }
+
+        ReplayLLM replay = ReplayLLM.builder(file).build();
+        List<String> replayedSteps = new EchoAgent("replayed", null, replay, null).run("hello");
+
+        assertEquals(recordedSteps, replayedSteps);
+        assertEquals(1, calls.get());
+        assertEquals(1, replay.getRecordCount());
+        assertThrows(LLMException.class, () -> replay.respond(List.of(Message.user("unknown")),
+                Optional.empty(), Optional.empty()));
+        assertEquals(1, replay.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Repeated requests replay in recorded order, failures included")
+    void replaysRepeatedRequestsInOrder() throws IOException {
+        Path file = tempDir.resolve("repeat.rec");
+        List<Message> prompt = List.of(Message.user("roll"));
+        AtomicInteger calls = new AtomicInteger();
+        LLM flaky = (messages, systemMessages, temperature) -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new LLMException("503 Service Unavailable");
+            }
+            return "roll " + calls.get();
+        };
+        try (RecordingLLM recording = RecordingLLM.open(flaky, file)) {
+            recording.respond(prompt, Optional.empty(), Optional.empty());
+            assertThrows(LLMException.class, () -> recording.respond(prompt, Optional.empty(), Optional.empty()));
+            recording.respond(prompt, Optional.empty(), Optional.empty());
+        }
+
+        ReplayLLM replay = ReplayLLM.builder(file)
+                .fallback((messages, systemMessages, temperature) -> "fallback")
+                .build();
+        assertEquals("roll 1", replay.respond(prompt, Optional.empty(), Optional.empty()));
+        LLMException failure = assertThrows(LLMException.class,
+                () -> replay.respond(prompt, Optional.empty(), Optional.empty()));
+        assertEquals("503 Service Unavailable", failure.getMessage());
+        assertEquals("roll 3", replay.respond(prompt, Optional.empty(), Optional.empty()));
+        assertEquals("roll 1", replay.respond(prompt, Optional.empty(), Optional.empty()));
+        assertEquals("fallback", replay.respond(List.of(Message.user("other")), Optional.empty(), Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("Recorded latency is reproduced, scaled, and cut short by cancellation")
+    void reproducesLatency() throws IOException {
+        Path file = tempDir.resolve("slow.rec");
+        List<Message> prompt = List.of(Message.user("slow"));
+        try (RecordingLLM recording = RecordingLLM.open((messages, systemMessages, temperature) -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "done";
+        }, file)) {
+            recording.respond(prompt, Optional.empty(), Optional.empty());
+        }
+
+        ReplayLLM instant = ReplayLLM.builder(file).build();
+        long started = System.nanoTime();
+        assertEquals("done", instant.respond(prompt, Optional.empty(), Optional.empty()));
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(150));
+
+        ReplayLLM halfSpeed = ReplayLLM.builder(file).reproduceLatency(true).latencyScale(0.5).build();
+        started = System.nanoTime();
+        assertEquals("done", halfSpeed.respond(prompt, Optional.empty(), Optional.empty()));
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(100));
+
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofMillis(20));
+        ReplayLLM realTime = ReplayLLM.builder(file).reproduceLatency(true).build();
+        assertThrows(CancelledException.class, () -> realTime.respond(prompt, Optional.empty(), Optional.empty(), token));
+    }
+
+    @Test
+    @DisplayName("A torn trailing record is ignored and foreign files are rejected")
+    void toleratesTornTail() throws IOException {
+        Path file = tempDir.resolve("torn.rec");
+        try (RecordingLLM recording = RecordingLLM.open((messages, systemMessages, temperature) -> "ok", file)) {
+            recording.respond(List.of(Message.user("a")), Optional.empty(), Optional.empty());
+            recording.respond(List.of(Message.user("b")), Optional.empty(), Optional.empty());
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertEquals(1, ReplayLLM.builder(file).build().getRecordCount());
+
+        Path foreign = tempDir.resolve("foreign.rec");
+        Files.writeString(foreign, "not a recording");
+        assertThrows(IOException.class, () -> ReplayLLM.builder(foreign).build());
+    }
+}
@@ -0,0 +1,190 @@
+package org.openmanus.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.core.Message;
+import org.openmanus.exception.LLMException;
+import org.openmanus.llm.RoutingLLM.BackendStats;
+import org.openmanus.llm.RoutingLLM.CircuitState;
+
+class RoutingLLMTest {
+    private static final List<Message> PROMPT = List.of(Message.user("hi"));
+
+    @Test
+    @DisplayName("Equivalent backends share the load evenly")
+    void spreadsLoadEvenly() throws Exception {
+        FakeBackend[] backends = {new FakeBackend("a", 2), new FakeBackend("b", 2), new FakeBackend("c", 2)};
+        RoutingLLM llm = route(backends).build();
+
+        callConcurrently(llm, 8, 300);
+
+        for (FakeBackend backend : backends) {
+            assertTrue(backend.calls.get() > 60 && backend.calls.get() < 140,
+                    backend.name + " served " + backend.calls.get());
+        }
+        assertTrue(llm.getStats().stream().allMatch(stats -> stats.getOutstanding() == 0));
+    }
+
+    @Test
+    @DisplayName("A slow replica receives a small share of the traffic")
+    void avoidsSlowReplica() throws Exception {
+        FakeBackend fast = new FakeBackend("fast", 1);
+        FakeBackend slow = new FakeBackend("slow", 40);
+        RoutingLLM llm = route(fast, slow).build();
+
+        callConcurrently(llm, 4, 200);
+
+        assertTrue(slow.calls.get() < 30, "slow served " + slow.calls.get());
+        BackendStats slowStats = llm.getStats().get(1);
+        assertEquals("slow", slowStats.getName());
+        assertTrue(slowStats.getEwmaLatency().compareTo(llm.getStats().get(0).getEwmaLatency()) > 0);
+    }
+
+    @Test
+    @DisplayName("A backend that has not answered yet does not absorb every call")
+    void unmeasuredBackendIsNotFavoured() throws Exception {
+        FakeBackend fast = new FakeBackend("fast", 1);
+        AtomicInteger stalledCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        LLM stalled = (messages, systemMessages, temperature) -> {
+            stalledCalls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new LLMException("stalled interrupted", e);
+            }
+            return "stalled";
+        };
+        RoutingLLM llm = RoutingLLM.builder().backend("fast", fast).backend("stalled", stalled).build();
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 100; i++) {
+                callers.execute(() -> llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (fast.calls.get() + stalledCalls.get() < 100 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(100, fast.calls.get() + stalledCalls.get());
+            assertTrue(stalledCalls.get() <= 4, "stalled took " + stalledCalls.get());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Failing backends are ejected, calls fail over, and a probe restores them")
+    void circuitBreakerEjectsAndRestores() throws Exception {
+        FakeBackend good = new FakeBackend("good", 0);
+        FakeBackend bad = new FakeBackend("bad", 0);
+        bad.failing = true;
+        RoutingLLM llm = route(good, bad)
+                .failureThreshold(1)
+                .openDuration(Duration.ofMillis(50))
+                .build();
+
+        for (int i = 0; i < 200 && state(llm, 1) != CircuitState.OPEN; i++) {
+            assertEquals("good", llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+        }
+        assertEquals(CircuitState.OPEN, state(llm, 1));
+        int ejectedAt = bad.calls.get();
+        for (int i = 0; i < 20; i++) {
+            assertEquals("good", llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+        }
+        assertEquals(ejectedAt, bad.calls.get());
+
+        bad.failing = false;
+        Thread.sleep(60);
+        for (int i = 0; i < 200 && state(llm, 1) != CircuitState.CLOSED; i++) {
+            llm.respond(PROMPT, Optional.empty(), Optional.empty());
+        }
+        assertEquals(CircuitState.CLOSED, state(llm, 1));
+        assertTrue(llm.getStats().get(1).getSuccesses() >= 1);
+    }
+
+    @Test
+    @DisplayName("Calls fail fast once every breaker is open")
+    void failsWhenNoBackendIsHealthy() {
+        FakeBackend only = new FakeBackend("only", 0);
+        only.failing = true;
+        RoutingLLM llm = route(only).failureThreshold(1).build();
+
+        LLMException first = assertThrows(LLMException.class,
+                () -> llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+        assertEquals("only failed", first.getMessage());
+        LLMException second = assertThrows(LLMException.class,
+                () -> llm.respond(PROMPT, Optional.empty(), Optional.empty()));
+        assertEquals("No healthy backend available", second.getMessage());
+        assertEquals(1, only.calls.get());
+    }
+
+    private static CircuitState state(RoutingLLM llm, int backend) {
+        return llm.getStats().get(backend).getCircuitState();
+    }
+
+    private static RoutingLLM.Builder route(FakeBackend... backends) {
+        RoutingLLM.Builder builder = RoutingLLM.builder();
+        for (FakeBackend backend : backends) {
+            builder.backend(backend.name, backend);
+        }
+        return builder;
+    }
+
+    private static void callConcurrently(LLM llm, int threads, int calls) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        try {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < calls; i++) {
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> llm.respond(PROMPT, Optional.empty(), Optional.empty()), callers));
+            }
+            for (CompletableFuture<String> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static final class FakeBackend implements LLM {
+        private final String name;
+        private final long latencyMillis;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean failing;
+
+        FakeBackend(String name, long latencyMillis) {
+            this.name = name;
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public String respond(List<Message> messages, Optional<List<Message>> systemMessages,
+                Optional<Double> temperature) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                throw new LLMException(name + " interrupted", e);
+            }
+            if (failing) {
+                throw new LLMException(name + " failed");
+            }
+            return name;
+        }
+    }
+}
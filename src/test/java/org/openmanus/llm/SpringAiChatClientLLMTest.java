@@ -3,17 +3,21 @@ package org.openmanus.llm;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.openmanus.core.CancellationToken;
 import org.openmanus.core.FunctionCall;
 import org.openmanus.core.Message;
 import org.openmanus.core.ToolCall;
+import org.openmanus.exception.CancelledException;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.ChatClient.AdvisorSpec;
 import org.springframework.ai.chat.client.ChatClient.Builder;
@@ -34,6 +38,7 @@ import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.Resource;
+import reactor.core.publisher.Flux;
 
 class SpringAiChatClientLLMTest {
     @Test
@@ -81,12 +86,72 @@ class SpringAiChatClientLLMTest {
         assertEquals(Optional.of(0.5), observed.get());
     }
 
+    @Test
+    @DisplayName("Converted messages are reused for the same message instances")
+    void memoizesConversionPerMessageInstance() {
+        StubChatClient stub = new StubChatClient("ok");
+        SpringAiChatClientLLM llm = new SpringAiChatClientLLM(stub);
+        Message user = Message.user("hello");
+        Message assistant = Message.assistant("hi");
+
+        llm.respond(List.of(user, assistant), Optional.empty(), Optional.empty());
+        List<org.springframework.ai.chat.messages.Message> first = stub.getCapturedMessages();
+        llm.respond(List.of(user, assistant, Message.user("hello")), Optional.empty(), Optional.empty());
+        List<org.springframework.ai.chat.messages.Message> second = stub.getCapturedMessages();
+
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(1), second.get(1));
+        assertNotSame(second.get(0), second.get(2));
+    }
+
+    @Test
+    @DisplayName("Streaming delegates to ChatClient.stream() and forwards each chunk")
+    void streamsChunksFromChatClient() {
+        StubChatClient stub = new StubChatClient("unused", List.of("Hel", "lo", " there"));
+        SpringAiChatClientLLM llm = new SpringAiChatClientLLM(stub);
+        List<String> chunks = new ArrayList<>();
+
+        String response = llm.respondStreaming(
+                List.of(Message.user("hi")), Optional.empty(), Optional.empty(), chunks::add);
+
+        assertEquals("Hello there", response);
+        assertEquals(List.of("Hel", "lo", " there"), chunks);
+        assertEquals(1, stub.getCapturedMessages().size());
+        assertInstanceOf(UserMessage.class, stub.getCapturedMessages().get(0));
+    }
+
+    @Test
+    @DisplayName("Cancelling the token disposes the in-flight provider stream")
+    void cancellationDisposesStream() {
+        AtomicBoolean disposed = new AtomicBoolean();
+        StubChatClient stub = new StubChatClient(Flux.<String>never().doOnCancel(() -> disposed.set(true)));
+        SpringAiChatClientLLM llm = new SpringAiChatClientLLM(stub);
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofMillis(50));
+
+        CancelledException e = assertThrows(CancelledException.class,
+                () -> llm.respond(List.of(Message.user("hi")), Optional.empty(), Optional.empty(), token));
+
+        assertEquals("Deadline exceeded", e.getMessage());
+        assertTrue(disposed.get());
+    }
+
     private static final class StubChatClient implements ChatClient {
         private final String response;
+        private final Flux<String> stream;
         private List<org.springframework.ai.chat.messages.Message> captured = List.of();
 
         StubChatClient(String response) {
+            this(response, List.of(response));
+        }
+
+        StubChatClient(String response, List<String> streamedChunks) {
             this.response = response;
+            this.stream = Flux.fromIterable(streamedChunks);
+        }
+
+        StubChatClient(Flux<String> stream) {
+            this.response = "unused";
+            this.stream = stream;
         }
 
         List<org.springframework.ai.chat.messages.Message> getCapturedMessages() {
@@ -240,7 +305,20 @@ class SpringAiChatClientLLMTest {
 
             @Override
             public StreamResponseSpec stream() {
-                throw new UnsupportedOperationException();
+                captured = List.copyOf(messages);
+                return new StubStreamResponseSpec();
+            }
+
+            private final class StubStreamResponseSpec implements StreamResponseSpec {
+                @Override
+                public Flux<org.springframework.ai.chat.model.ChatResponse> chatResponse() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Flux<String> content() {
+                    return stream;
+                }
             }
 
             private final class StubCallResponseSpec implements CallResponseSpec {
@@ -0,0 +1,64 @@
+package org.openmanus.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openmanus.agent.EchoAgent;
+import org.openmanus.core.AgentState;
+import org.openmanus.core.Memory;
+import org.openmanus.llm.MeteredLLM;
+import org.openmanus.llm.SimpleLLM;
+
+class RecordingMetricsTest {
+    @Test
+    @DisplayName("Histogram percentiles stay within the bucket precision")
+    void histogramPercentiles() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10_000, histogram.count());
+        assertEquals(10_000, histogram.max());
+        assertEquals(5_000.5, histogram.mean(), 0.001);
+        assertEquals(5_000, histogram.percentile(50), 5_000 * 0.035);
+        assertEquals(9_900, histogram.percentile(99), 9_900 * 0.035);
+        assertEquals(10_000, histogram.percentile(100));
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    @DisplayName("Bucket bounds are contiguous across exact and log-linear ranges")
+    void bucketBoundsAreContiguous() {
+        for (long value : new long[] {0, 1, 63, 64, 65, 127, 128, 1_000_003, Long.MAX_VALUE}) {
+            int index = Histogram.bucketIndex(value);
+            assertTrue(Histogram.bucketUpperBound(index) >= value);
+            assertTrue(index == 0 || Histogram.bucketUpperBound(index - 1) < value);
+        }
+    }
+
+    @Test
+    @DisplayName("Agents and metered LLMs report steps, calls, memory and run outcomes")
+    void agentReportsMetrics() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        EchoAgent agent = new EchoAgent("metered", null, new MeteredLLM(new SimpleLLM(), metrics), new Memory(1));
+        agent.setMetrics(metrics);
+
+        assertEquals(List.of("Step 1: ping"), agent.run("ping"));
+
+        assertEquals(1, metrics.getStepLatency().count());
+        assertEquals(1, metrics.getLlmLatency().count());
+        assertEquals(0, metrics.getLlmErrors());
+        assertEquals(1, metrics.getRuns(AgentState.FINISHED));
+        Map<String, Number> snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.get("memory.size"));
+        assertEquals(1L, snapshot.get("memory.evictions"));
+        assertTrue(snapshot.containsKey("agent.step.latency.p999"));
+        assertEquals(0L, snapshot.get("agent.runs.cancelled"));
+        assertFalse(snapshot.containsKey("agent.runs.running"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.recordRun(AgentState.RUNNING));
+    }
+}
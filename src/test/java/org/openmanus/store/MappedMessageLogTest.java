@@ -0,0 +1,185 @@
+package org.openmanus.store;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmanus.core.FunctionCall;
+import org.openmanus.core.Memory;
+import org.openmanus.core.Message;
+import org.openmanus.core.Role;
+import org.openmanus.core.ToolCall;
+
+class MappedMessageLogTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("A memory backed by the log is restored with tool calls intact")
+    void restoresMemoryFromLog() throws IOException {
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            Memory memory = Memory.builder().store(log).build();
+            memory.addMessage(Message.user("weather?"));
+            memory.addMessage(Message.assistantWithTools("checking", List.of(
+                    ToolCall.functionCall("call-1", new FunctionCall("lookup", "{\"city\":\"Zürich\"}")))));
+            memory.addMessage(Message.tool("{\"t\":21}", "lookup", "call-1"));
+        }
+
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            Memory restored = Memory.builder().store(log).build();
+            List<Message> history = restored.asList();
+            assertEquals(3, history.size());
+            assertEquals(Role.ASSISTANT, history.get(1).getRole());
+            ToolCall call = history.get(1).getToolCalls().get(0);
+            assertEquals("call-1", call.getId());
+            assertEquals("{\"city\":\"Zürich\"}", call.getFunction().getArguments());
+            assertEquals("call-1", history.get(2).getToolCallId().orElseThrow());
+            assertTrue(history.get(0).getName().isEmpty());
+
+            restored.addMessage(Message.assistant("21 degrees"));
+        }
+
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            assertEquals(4, Memory.builder().store(log).build().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Segments roll when full and compaction keeps only live messages")
+    void rollsAndCompactsSegments() throws IOException {
+        try (MappedMessageLog log = MappedMessageLog.builder(tempDir)
+                .segmentSize(256)
+                .syncEvery(4)
+                .compactionMinDead(8)
+                .build()) {
+            Memory memory = Memory.builder().maxMessages(5).store(log).build();
+            for (int i = 0; i < 12; i++) {
+                memory.addMessage(Message.user("message number " + i));
+            }
+            assertTrue(segmentCount() > 1);
+            assertEquals(12, log.recordCount());
+
+            for (int i = 12; i < 40; i++) {
+                memory.addMessage(Message.user("message number " + i));
+            }
+        }
+
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            Memory restored = Memory.builder().maxMessages(5).store(log).build();
+            assertEquals("message number 35", restored.asList().get(0).getContent().orElseThrow());
+            assertEquals("message number 39", restored.lastMessage().orElseThrow().getContent().orElseThrow());
+            assertTrue(log.recordCount() < 5 + 8);
+        }
+    }
+
+    @Test
+    @DisplayName("Clearing the memory deletes the persisted log")
+    void clearDeletesSegments() throws IOException {
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            Memory memory = Memory.builder().store(log).build();
+            memory.addMessage(Message.user("temporary"));
+            memory.clear();
+            assertEquals(0, segmentCount());
+        }
+    }
+
+    @Test
+    @DisplayName("A compaction torn by a crash leaves the previous history intact")
+    void tornCompactionKeepsHistory() throws IOException {
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            Memory memory = Memory.builder().store(log).build();
+            for (int i = 0; i < 6; i++) {
+                memory.addMessage(Message.user("message number " + i));
+            }
+        }
+
+        // Compact elsewhere, then plant the result as the next segment, still
+        // pending and cut off after its first record, as a crash would leave it.
+        Path scratch = Files.createDirectory(tempDir.resolve("scratch"));
+        try (MappedMessageLog log = MappedMessageLog.open(scratch)) {
+            log.compact(List.of(Message.user("message number 4"), Message.user("message number 5")));
+        }
+        Path compacted;
+        try (Stream<Path> files = Files.list(scratch)) {
+            compacted = files.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .findFirst().orElseThrow();
+        }
+        ByteBuffer segment = ByteBuffer.wrap(Files.readAllBytes(compacted));
+        segment.putInt(8, 2);
+        int firstRecordEnd = 12 + 8 + segment.getInt(12);
+        Path torn = tempDir.resolve("segment-00000002.log");
+        Files.write(torn, Arrays.copyOf(segment.array(), firstRecordEnd + 3));
+
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            assertFalse(Files.exists(torn));
+            Memory restored = Memory.builder().store(log).build();
+            assertEquals(6, restored.size());
+            assertEquals("message number 0", restored.asList().get(0).getContent().orElseThrow());
+
+            log.compact(restored.asList().subList(4, 6));
+        }
+
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            List<Message> history = Memory.builder().store(log).build().asList();
+            assertEquals(2, history.size());
+            assertEquals("message number 4", history.get(0).getContent().orElseThrow());
+            assertEquals(1, segmentCount());
+        }
+    }
+
+    @Test
+    @DisplayName("A compaction that fails partway keeps appending to the previous segment")
+    void failedCompactionRestoresTail() throws IOException {
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            Memory memory = Memory.builder().store(log).build();
+            for (int i = 0; i < 3; i++) {
+                memory.addMessage(Message.user("message number " + i));
+            }
+
+            // Sizing iterates the history once; the second pass fails after one record.
+            List<Message> live = new AbstractList<>() {
+                private int reads;
+
+                @Override
+                public Message get(int index) {
+                    if (++reads > 3) {
+                        throw new IllegalStateException("injected failure");
+                    }
+                    return Message.user("live " + index);
+                }
+
+                @Override
+                public int size() {
+                    return 2;
+                }
+            };
+            assertThrows(IllegalStateException.class, () -> log.compact(live));
+            assertEquals(1, segmentCount());
+            assertEquals(3, log.recordCount());
+
+            memory.addMessage(Message.user("after failure"));
+        }
+
+        try (MappedMessageLog log = MappedMessageLog.open(tempDir)) {
+            List<Message> history = Memory.builder().store(log).build().asList();
+            assertEquals(4, history.size());
+            assertEquals("message number 0", history.get(0).getContent().orElseThrow());
+            assertEquals("after failure", history.get(3).getContent().orElseThrow());
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+}